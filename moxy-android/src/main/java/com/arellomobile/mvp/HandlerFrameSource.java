@@ -0,0 +1,50 @@
+package com.arellomobile.mvp;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.arellomobile.mvp.viewstate.FrameSource;
+
+/**
+ * Date: 16.03.2016
+ * Time: 13:30
+ * <p>
+ * Frame source, which runs callbacks at main thread at boundaries of frames of {@link SystemClock#uptimeMillis()}.
+ * Callbacks, posted during one frame, run together at start of next one
+ *
+ * @author Alexander Blinov
+ */
+public class HandlerFrameSource implements FrameSource
+{
+	public static final long DEFAULT_FRAME_MILLIS = 16;
+
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private final long mFrameMillis;
+
+	public HandlerFrameSource()
+	{
+		this(DEFAULT_FRAME_MILLIS);
+	}
+
+	/**
+	 * @param frameMillis duration of frame in milliseconds
+	 */
+	public HandlerFrameSource(long frameMillis)
+	{
+		if (frameMillis <= 0)
+		{
+			throw new IllegalArgumentException("Frame duration should be positive");
+		}
+
+		mFrameMillis = frameMillis;
+	}
+
+	@Override
+	public void postFrameCallback(Runnable callback)
+	{
+		long now = SystemClock.uptimeMillis();
+
+		mHandler.postAtTime(callback, now - now % mFrameMillis + mFrameMillis);
+	}
+}
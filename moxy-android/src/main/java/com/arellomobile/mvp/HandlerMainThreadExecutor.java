@@ -0,0 +1,32 @@
+package com.arellomobile.mvp;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.arellomobile.mvp.viewstate.MainThreadExecutor;
+
+/**
+ * Date: 17.03.2016
+ * Time: 12:10
+ * <p>
+ * Runs commands of view states, called from background threads, at main looper
+ *
+ * @author Alexander Blinov
+ */
+public class HandlerMainThreadExecutor implements MainThreadExecutor
+{
+	private final Looper mMainLooper = Looper.getMainLooper();
+	private final Handler mHandler = new Handler(mMainLooper);
+
+	@Override
+	public boolean isMainThread()
+	{
+		return Looper.myLooper() == mMainLooper;
+	}
+
+	@Override
+	public void execute(Runnable command)
+	{
+		mHandler.post(command);
+	}
+}
@@ -1,6 +1,13 @@
 package com.arellomobile.mvp;
 
+import java.util.concurrent.Executor;
+
 import android.app.Application;
+import android.content.ComponentCallbacks2;
+
+import com.arellomobile.mvp.viewstate.FrameSource;
+import com.arellomobile.mvp.viewstate.MainThreadExecutor;
+import com.arellomobile.mvp.viewstate.MvpViewState;
 
 /**
  * Date: 17-Dec-15
@@ -15,5 +22,97 @@ public class MvpApplication extends Application
 	{
 		super.onCreate();
 		MvpFacade.init();
+		MvpViewState.setFrameSource(getFrameSource());
+		MvpViewState.setMainThreadExecutor(getMainThreadExecutor());
+
+		Executor warmUpExecutor = getWarmUpExecutor();
+		if (warmUpExecutor != null)
+		{
+			MvpFacade.getInstance().warmUp(warmUpExecutor);
+		}
+	}
+
+	@Override
+	public void onTrimMemory(int level)
+	{
+		super.onTrimMemory(level);
+
+		MvpFacade.getInstance().getPresenterStore().trimSoftPresenters(getSoftPresentersTrimFraction(level));
+	}
+
+	@Override
+	public void onLowMemory()
+	{
+		super.onLowMemory();
+
+		MvpFacade.getInstance().getPresenterStore().trimSoftPresenters(1);
+	}
+
+	/**
+	 * Override to change, how many SOFT presenters will be dropped on {@link #onTrimMemory(int)}
+	 *
+	 * @param level level of {@link #onTrimMemory(int)}
+	 * @return part of SOFT presenters to drop, from 0 to 1
+	 */
+	protected float getSoftPresentersTrimFraction(int level)
+	{
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE)
+		{
+			return 1;
+		}
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE)
+		{
+			return 0.5f;
+		}
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND)
+		{
+			return 0.25f;
+		}
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)
+		{
+			return 0;
+		}
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL)
+		{
+			return 0.5f;
+		}
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+		{
+			return 0.25f;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Override to change frames, which deliver commands of {@link com.arellomobile.mvp.viewstate.Conflate} methods
+	 *
+	 * @return frame source for all view states
+	 */
+	protected FrameSource getFrameSource()
+	{
+		return new HandlerFrameSource();
+	}
+
+	/**
+	 * Override to allow presenters to call view states from background threads, e.g. return
+	 * {@link HandlerMainThreadExecutor}
+	 *
+	 * @return executor of main thread, or null if view states are called from main thread only
+	 */
+	protected MainThreadExecutor getMainThreadExecutor()
+	{
+		return null;
+	}
+
+	/**
+	 * Override to resolve binders, view states and factories of all annotated classes at background,
+	 * before first activity is created. E.g. return {@link android.os.AsyncTask#THREAD_POOL_EXECUTOR}
+	 *
+	 * @return executor for warm up, or null to resolve everything lazily
+	 */
+	protected Executor getWarmUpExecutor()
+	{
+		return null;
 	}
 }
@@ -11,6 +11,7 @@ import java.util.Set;
 
 import com.arellomobile.mvp.GenerateViewState;
 import com.arellomobile.mvp.InjectViewState;
+import com.arellomobile.mvp.MvpRegistry;
 import com.arellomobile.mvp.ParamsProvider;
 import com.arellomobile.mvp.presenter.InjectPresenter;
 import com.google.auto.service.AutoService;
@@ -27,7 +28,9 @@ import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
+import javax.tools.FileObject;
 import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
 
 
 import static javax.lang.model.SourceVersion.latestSupported;
@@ -40,11 +43,17 @@ public class MvpCompiler extends AbstractProcessor
 	private static Types sTypeUtils;
 	private static Elements sElementUtils;
 
+	private MvpRegistryClassGenerator mMvpRegistryClassGenerator;
+	private boolean mMvpRegistryGenerated;
+
 	@Override
 	public synchronized void init(ProcessingEnvironment processingEnv)
 	{
 		super.init(processingEnv);
 
+		mMvpRegistryClassGenerator = new MvpRegistryClassGenerator();
+		mMvpRegistryGenerated = false;
+
 		sMessager = processingEnv.getMessager();
 		sTypeUtils = processingEnv.getTypeUtils();
 		sElementUtils = processingEnv.getElementUtils();
@@ -86,8 +95,14 @@ public class MvpCompiler extends AbstractProcessor
 
 		ViewStateProviderClassGenerator viewStateProviderClassGenerator = new ViewStateProviderClassGenerator();
 		processInjectors(roundEnv, InjectViewState.class, ElementKind.CLASS, viewStateProviderClassGenerator);
-		processInjectors(roundEnv, InjectPresenter.class, ElementKind.FIELD, new PresenterBinderClassGenerator());
-		processInjectors(roundEnv, ParamsProvider.class, ElementKind.INTERFACE, new ParamsHolderClassGenerator());
+		mMvpRegistryClassGenerator.addPresenters(viewStateProviderClassGenerator.getPresenters());
+		PresenterBinderClassGenerator presenterBinderClassGenerator = new PresenterBinderClassGenerator();
+		processInjectors(roundEnv, InjectPresenter.class, ElementKind.FIELD, presenterBinderClassGenerator);
+		mMvpRegistryClassGenerator.addPresentersContainers(presenterBinderClassGenerator.getPresentersContainers());
+		mMvpRegistryClassGenerator.addPresenterFactories(presenterBinderClassGenerator.getPresenterFactories());
+		ParamsHolderClassGenerator paramsHolderClassGenerator = new ParamsHolderClassGenerator();
+		processInjectors(roundEnv, ParamsProvider.class, ElementKind.INTERFACE, paramsHolderClassGenerator);
+		mMvpRegistryClassGenerator.addParamsHolders(paramsHolderClassGenerator.getParamsHolders());
 
 		ViewStateClassGenerator viewStateClassGenerator = new ViewStateClassGenerator();
 		Set<TypeElement> usedViews = viewStateProviderClassGenerator.getUsedViews();
@@ -97,9 +112,62 @@ public class MvpCompiler extends AbstractProcessor
 			generateCode(ElementKind.INTERFACE, viewStateClassGenerator, usedView);
 		}
 
+		// Registries are generated once, at first round without new annotated elements, after classes were generated.
+		// So they contain all classes generated at previous rounds, and they will be compiled as usual sources(not at last
+		// round)
+		if (annotations.isEmpty() && !roundEnv.processingOver() && !mMvpRegistryGenerated)
+		{
+			generateMvpRegistry();
+		}
+
 		return true;
 	}
 
+	private void generateMvpRegistry()
+	{
+		List<ClassGeneratingParams> classGeneratingParamsList = new ArrayList<>();
+
+		// there are no generated classes at module, so registry is not needed
+		if (!mMvpRegistryClassGenerator.generate(null, classGeneratingParamsList))
+		{
+			return;
+		}
+
+		mMvpRegistryGenerated = true;
+
+		List<String> registries = new ArrayList<>();
+		for (ClassGeneratingParams classGeneratingParams : classGeneratingParamsList)
+		{
+			createSourceFile(classGeneratingParams);
+			registries.add(classGeneratingParams.getName());
+		}
+
+		createServicesFile(MvpRegistry.class, registries);
+	}
+
+	/**
+	 * Lists generated implementations, so they could be found by {@link java.util.ServiceLoader}
+	 */
+	private void createServicesFile(Class<?> service, List<String> implementations)
+	{
+		try
+		{
+			FileObject f = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + service.getName());
+
+			Writer w = f.openWriter();
+			for (String implementation : implementations)
+			{
+				w.write(implementation + "\n");
+			}
+			w.flush();
+			w.close();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
 
 	private void checkInjectors(final RoundEnvironment roundEnv, Class<? extends Annotation> clazz, AnnotationRule annotationRule)
 	{
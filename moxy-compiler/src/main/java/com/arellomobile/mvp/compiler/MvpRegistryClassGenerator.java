@@ -0,0 +1,243 @@
+package com.arellomobile.mvp.compiler;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.arellomobile.mvp.MvpProcessor;
+
+/**
+ * Date: 02.03.2016
+ * Time: 13:20
+ * <p>
+ * Generates {@link com.arellomobile.mvp.MvpRegistry} implementation for each package, which contains classes generated
+ * by other generators at all rounds of annotation processing. Registry is placed in package of its classes, so names of
+ * registries of different modules do not clash, and registry could reference package-private presenter containers.
+ * <p>
+ * Classes are matched by their names. Lookups of unknown classes(e.g. classes of other modules) are delegated to
+ * reflective registry. Presenter factories and params holders are public, so they are listed by first registry only.
+ *
+ * @author Alexander Blinov
+ */
+final class MvpRegistryClassGenerator extends ClassGenerator<Void>
+{
+	private final Map<String, PackageRegistry> mPackageRegistries;
+	private final Set<String> mPresenterFactories;
+	private final Set<String> mParamsHolders;
+
+	public MvpRegistryClassGenerator()
+	{
+		mPackageRegistries = new TreeMap<>();
+		mPresenterFactories = new TreeSet<>();
+		mParamsHolders = new TreeSet<>();
+	}
+
+	public void addPresentersContainers(Collection<String> presentersContainers)
+	{
+		for (String presentersContainer : presentersContainers)
+		{
+			getPackageRegistry(presentersContainer).mPresentersContainers.add(presentersContainer);
+		}
+	}
+
+	public void addPresenters(Collection<String> presenters)
+	{
+		for (String presenter : presenters)
+		{
+			getPackageRegistry(presenter).mPresenters.add(presenter);
+		}
+	}
+
+	public void addPresenterFactories(Collection<String> presenterFactories)
+	{
+		mPresenterFactories.addAll(presenterFactories);
+	}
+
+	public void addParamsHolders(Collection<String> paramsHolders)
+	{
+		mParamsHolders.addAll(paramsHolders);
+	}
+
+	/**
+	 * @return false if there are no generated classes, so registry is not needed
+	 */
+	@Override
+	public boolean generate(Void element, List<ClassGeneratingParams> classGeneratingParamsList)
+	{
+		if (mPackageRegistries.isEmpty() && !mParamsHolders.isEmpty())
+		{
+			// params holders without presenters containers, they are generated in package of factory
+			getPackageRegistry(mParamsHolders.iterator().next());
+		}
+
+		if (mPackageRegistries.isEmpty())
+		{
+			return false;
+		}
+
+		boolean isFirst = true;
+		for (Map.Entry<String, PackageRegistry> entry : mPackageRegistries.entrySet())
+		{
+			PackageRegistry packageRegistry = entry.getValue();
+
+			if (isFirst)
+			{
+				packageRegistry.mPresenterFactories.addAll(mPresenterFactories);
+				packageRegistry.mParamsHolders.addAll(mParamsHolders);
+				isFirst = false;
+			}
+
+			classGeneratingParamsList.add(generateRegistry(entry.getKey(), packageRegistry));
+		}
+
+		return true;
+	}
+
+	private ClassGeneratingParams generateRegistry(String packageName, PackageRegistry packageRegistry)
+	{
+		String fullClassName = packageName.isEmpty() ? MvpProcessor.MVP_REGISTRY_SIMPLE_NAME : packageName + "." + MvpProcessor.MVP_REGISTRY_SIMPLE_NAME;
+
+		String builder = (packageName.isEmpty() ? "" : "package " + packageName + ";\n\n") +
+				"import java.util.Arrays;\n" +
+				"import java.util.Collection;\n" +
+				"import java.util.HashMap;\n" +
+				"import java.util.Map;\n" +
+				"\n" +
+				"import com.arellomobile.mvp.MvpRegistry;\n" +
+				"import com.arellomobile.mvp.ParamsHolder;\n" +
+				"import com.arellomobile.mvp.PresenterBinder;\n" +
+				"import com.arellomobile.mvp.PresenterFactory;\n" +
+				"import com.arellomobile.mvp.ViewStateProvider;\n" +
+				"\n" +
+				"public final class " + MvpProcessor.MVP_REGISTRY_SIMPLE_NAME + " extends MvpRegistry\n" +
+				"{\n" +
+				"\t@Override\n" +
+				"\tpublic PresenterBinder<?> createPresenterBinder(Class<?> presentersContainer)\n" +
+				"\t{\n" +
+				"\t\tswitch (presentersContainer.getName())\n" +
+				"\t\t{\n";
+
+		for (String presentersContainer : packageRegistry.mPresentersContainers)
+		{
+			builder += "\t\t\tcase \"" + presentersContainer + "\":\n" +
+					"\t\t\t\treturn new " + presentersContainer + MvpProcessor.PRESENTER_BINDER_SUFFIX + "();\n";
+		}
+
+		builder += "\t\t\tdefault:\n" +
+				"\t\t\t\treturn getReflectiveRegistry().createPresenterBinder(presentersContainer);\n" +
+				"\t\t}\n" +
+				"\t}\n" +
+				"\n" +
+				"\t@Override\n" +
+				"\tpublic ViewStateProvider createViewStateProvider(Class<?> presenterClass)\n" +
+				"\t{\n" +
+				"\t\tswitch (presenterClass.getName())\n" +
+				"\t\t{\n";
+
+		for (String presenter : packageRegistry.mPresenters)
+		{
+			builder += "\t\t\tcase \"" + presenter + "\":\n" +
+					"\t\t\t\treturn new " + presenter + MvpProcessor.VIEW_STATE_PROVIDER_SUFFIX + "();\n";
+		}
+
+		builder += "\t\t\tdefault:\n" +
+				"\t\t\t\treturn getReflectiveRegistry().createViewStateProvider(presenterClass);\n" +
+				"\t\t}\n" +
+				"\t}\n" +
+				"\n" +
+				"\t@Override\n" +
+				"\tpublic Map<Class<? extends PresenterFactory<?, ?>>, PresenterFactory<?, ?>> getPresenterFactories()\n" +
+				"\t{\n" +
+				"\t\tMap<Class<? extends PresenterFactory<?, ?>>, PresenterFactory<?, ?>> presenterFactories = new HashMap<>();\n" +
+				"\n";
+
+		for (String presenterFactory : packageRegistry.mPresenterFactories)
+		{
+			builder += "\t\tpresenterFactories.put(" + presenterFactory + ".class, new " + presenterFactory + "());\n";
+		}
+
+		builder += "\n" +
+				"\t\treturn presenterFactories;\n" +
+				"\t}\n" +
+				"\n" +
+				"\t@Override\n" +
+				"\tpublic Map<Class<? extends ParamsHolder<?>>, ParamsHolder<?>> getParamsHolders()\n" +
+				"\t{\n" +
+				"\t\tMap<Class<? extends ParamsHolder<?>>, ParamsHolder<?>> paramsHolders = new HashMap<>();\n" +
+				"\n";
+
+		for (String paramsHolder : packageRegistry.mParamsHolders)
+		{
+			builder += "\t\tparamsHolders.put(" + paramsHolder + ".class, new " + paramsHolder + "());\n";
+		}
+
+		builder += "\n" +
+				"\t\treturn paramsHolders;\n" +
+				"\t}\n" +
+				"\n" +
+				"\t@Override\n" +
+				"\tpublic Collection<Class<?>> getPresentersContainers()\n" +
+				"\t{\n" +
+				"\t\treturn Arrays.<Class<?>>asList(" + joinClasses(packageRegistry.mPresentersContainers) + ");\n" +
+				"\t}\n" +
+				"}\n";
+
+		ClassGeneratingParams classGeneratingParams = new ClassGeneratingParams();
+		classGeneratingParams.setName(fullClassName);
+		classGeneratingParams.setBody(builder);
+
+		return classGeneratingParams;
+	}
+
+	/**
+	 * @param className full name of generated class
+	 * @return registry of package of class
+	 */
+	private PackageRegistry getPackageRegistry(String className)
+	{
+		int lastDot = className.lastIndexOf(".");
+		String packageName = lastDot < 0 ? "" : className.substring(0, lastDot);
+
+		PackageRegistry packageRegistry = mPackageRegistries.get(packageName);
+		if (packageRegistry == null)
+		{
+			packageRegistry = new PackageRegistry();
+			mPackageRegistries.put(packageName, packageRegistry);
+		}
+
+		return packageRegistry;
+	}
+
+	/**
+	 * Registry is placed in package of containers, so it could reference package-private classes. Nested classes are
+	 * named with '$' by other generators, so their names are converted to canonical ones
+	 */
+	private static String joinClasses(Set<String> names)
+	{
+		String result = "";
+
+		for (String name : names)
+		{
+			if (result.length() > 0)
+			{
+				result += ", ";
+			}
+
+			int lastDot = name.lastIndexOf(".");
+			result += name.substring(0, lastDot + 1) + name.substring(lastDot + 1).replace('$', '.') + ".class";
+		}
+
+		return result;
+	}
+
+	private static class PackageRegistry
+	{
+		final Set<String> mPresentersContainers = new TreeSet<>();
+		final Set<String> mPresenters = new TreeSet<>();
+		final Set<String> mPresenterFactories = new TreeSet<>();
+		final Set<String> mParamsHolders = new TreeSet<>();
+	}
+}
@@ -4,7 +4,9 @@ import com.arellomobile.mvp.DefaultPresenterFactory;
 import com.arellomobile.mvp.MvpProcessor;
 import com.arellomobile.mvp.ParamsProvider;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
@@ -21,6 +23,13 @@ import javax.lang.model.type.TypeMirror;
  */
 final class ParamsHolderClassGenerator extends ClassGenerator<TypeElement>
 {
+	private final Set<String> mParamsHolders;
+
+	public ParamsHolderClassGenerator()
+	{
+		mParamsHolders = new HashSet<>();
+	}
+
 	@Override
 	public boolean generate(TypeElement typeElement, List<ClassGeneratingParams> classGeneratingParamsList)
 	{
@@ -80,6 +89,7 @@ final class ParamsHolderClassGenerator extends ClassGenerator<TypeElement>
 	private void generateForClass(TypeElement typeElement, ClassGeneratingParams classGeneratingParams, String parentClassName, String methodName, String returnType)
 	{
 		classGeneratingParams.setName(parentClassName + MvpProcessor.FACTORY_PARAMS_HOLDER_SUFFIX);
+		mParamsHolders.add(parentClassName + MvpProcessor.FACTORY_PARAMS_HOLDER_SUFFIX);
 
 		final String className = typeElement.getQualifiedName().toString();
 		final String viewClassName = parentClassName.substring(parentClassName.lastIndexOf(".") + 1);
@@ -149,4 +159,11 @@ final class ParamsHolderClassGenerator extends ClassGenerator<TypeElement>
 		return false;
 	}
 
+	/**
+	 * @return full class names of generated params holders
+	 */
+	public Set<String> getParamsHolders()
+	{
+		return mParamsHolders;
+	}
 }
@@ -1,6 +1,7 @@
 package com.arellomobile.mvp.compiler;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -51,10 +52,12 @@ final class PresenterBinderClassGenerator extends ClassGenerator<VariableElement
 {
 	public static final String PRESENTER_FIELD_ANNOTATION = InjectPresenter.class.getName();
 	private final List<String> mPresentersContainers;
+	private final Set<String> mPresenterFactories;
 
 	public PresenterBinderClassGenerator()
 	{
 		mPresentersContainers = new ArrayList<>();
+		mPresenterFactories = new HashSet<>();
 	}
 
 	public boolean generate(VariableElement variableElement, List<ClassGeneratingParams> classGeneratingParamsList)
@@ -65,18 +68,19 @@ final class PresenterBinderClassGenerator extends ClassGenerator<VariableElement
 		{
 			throw new RuntimeException("Only class fields could be annotated as @InjectPresenter: " + variableElement + " at " + enclosingElement);
 		}
-		if (mPresentersContainers.contains(enclosingElement.toString()))
+
+		TypeElement presentersContainer = (TypeElement) enclosingElement;
+
+		String fullClassName = Util.getFullClassName(presentersContainer);
+
+		if (mPresentersContainers.contains(fullClassName))
 		{
 			return false;
 		}
 
-		TypeElement presentersContainer = (TypeElement) enclosingElement;
-
 		System.out.println(presentersContainer + " " + presentersContainer.getModifiers().iterator().next().name());
 
-		mPresentersContainers.add(presentersContainer.toString());
-
-		String fullClassName = Util.getFullClassName(presentersContainer);
+		mPresentersContainers.add(fullClassName);
 
 		ClassGeneratingParams classGeneratingParams = new ClassGeneratingParams();
 		classGeneratingParams.setName(fullClassName + MvpProcessor.PRESENTER_BINDER_SUFFIX);
@@ -88,16 +92,17 @@ final class PresenterBinderClassGenerator extends ClassGenerator<VariableElement
 		String builder = "package " + fullClassName.substring(0, fullClassName.lastIndexOf(".")) + ";\n" +
 				"\n" +
 				"import java.util.ArrayList;\n" +
+				"import java.util.Collections;\n" +
 				"import java.util.List;\n" +
 				"\n" +
-				"import com.arellomobile.mvp.ParamsHolder;" +
+				"import com.arellomobile.mvp.ParamsHolder;\n" +
 				"import com.arellomobile.mvp.PresenterBinder;\n" +
 				"import com.arellomobile.mvp.presenter.PresenterField;\n" +
 				"import com.arellomobile.mvp.PresenterFactory;\n" +
 				"import com.arellomobile.mvp.MvpPresenter;\n" +
 				"import com.arellomobile.mvp.presenter.PresenterType;\n" +
 				"\n" +
-				"public class " + viewClassName + MvpProcessor.PRESENTER_BINDER_SUFFIX + " extends PresenterBinder<" + parentClassName + ">" +
+				"public final class " + viewClassName + MvpProcessor.PRESENTER_BINDER_SUFFIX + " extends PresenterBinder<" + parentClassName + ">" +
 				"\n" +
 				"{\n";
 
@@ -152,6 +157,11 @@ final class PresenterBinderClassGenerator extends ClassGenerator<VariableElement
 							presenterId = elementValues.get(executableElement).toString();
 						}
 					}
+					if (factory != null && Util.isPublicInstantiable((TypeElement) factory.asElement()))
+					{
+						mPresenterFactories.add(((TypeElement) factory.asElement()).getQualifiedName().toString());
+					}
+
 					Field field = new Field(clazz, name, type, tag, factory, presenterId);
 					fields.add(field);
 					continue outer;
@@ -159,13 +169,13 @@ final class PresenterBinderClassGenerator extends ClassGenerator<VariableElement
 			}
 		}
 
+		builder = generateGetPresentersMethod(builder, fields, parentClassName, viewClassName + MvpProcessor.PRESENTER_BINDER_SUFFIX);
+
 		for (Field field : fields)
 		{
-			builder = generatePresenterBinderClass(builder, field);
+			builder = generatePresenterBinderClass(builder, field, parentClassName);
 		}
 
-		builder = generateGetPresentersMethod(builder, fields, parentClassName);
-
 		builder += "}\n";
 
 		classGeneratingParams.setBody(builder);
@@ -174,28 +184,51 @@ final class PresenterBinderClassGenerator extends ClassGenerator<VariableElement
 		return true;
 	}
 
-	private static String generateGetPresentersMethod(final String builder, final List<Field> fields, String parentClassName)
+	/**
+	 * @return full class names of presenters containers, for which binders were generated
+	 */
+	public List<String> getPresentersContainers()
+	{
+		return mPresentersContainers;
+	}
+
+	/**
+	 * @return canonical names of public presenter factories, referenced by {@link com.arellomobile.mvp.presenter.InjectPresenter#factory()}
+	 */
+	public Set<String> getPresenterFactories()
+	{
+		return mPresenterFactories;
+	}
+
+	private static String generateGetPresentersMethod(final String builder, final List<Field> fields, String parentClassName, String binderClassName)
 	{
-		String s = "\tpublic List<PresenterField<? super " + parentClassName + ">> getPresenterFields()\n" +
+		String s = "\tprivate final List<PresenterField<? super " + parentClassName + ">> mPresenterFields;\n" +
+				"\n" +
+				"\tpublic " + binderClassName + "()\n" +
 				"\t{\n" +
-				"\t\tList<PresenterField<? super " + parentClassName + ">> presenters = new ArrayList<>();\n" +
+				"\t\tList<PresenterField<? super " + parentClassName + ">> presenters = new ArrayList<>(" + fields.size() + ");\n" +
 				"\n";
 
-
 		for (Field field : fields)
 		{
 			s += "\t\tpresenters.add(new " + field.getGeneratedClassName() + "());\n";
 		}
 
 		s += "\n" +
-				"\t\treturn presenters;\n" +
+				"\t\tmPresenterFields = Collections.unmodifiableList(presenters);\n" +
+				"\t}\n" +
+				"\n" +
+				"\t@Override\n" +
+				"\tpublic List<PresenterField<? super " + parentClassName + ">> getPresenterFields()\n" +
+				"\t{\n" +
+				"\t\treturn mPresenterFields;\n" +
 				"\t}\n" +
 				"\n";
 
 		return builder + s;
 	}
 
-	private static String generatePresenterBinderClass(final String builder, final Field field)
+	private static String generatePresenterBinderClass(final String builder, final Field field, String parentClassName)
 	{
 		boolean hasEmptyConstructor = false;
 
@@ -222,17 +255,31 @@ final class PresenterBinderClassGenerator extends ClassGenerator<VariableElement
 
 		String defaultInstance = hasEmptyConstructor ? ("new " + field.getClazz() + "()") : "null";
 
-		final String s = "\tpublic class " + field.getGeneratedClassName() + " extends PresenterField\n" +
+		// class literal of generic presenter is raw, so it is typed by PresenterField
+		TypeElement presenterElement = (TypeElement) field.getClazz().asElement();
+		String presenterClass = presenterElement + ".class";
+		if (!presenterElement.getTypeParameters().isEmpty())
+		{
+			presenterClass = "PresenterField.<MvpPresenter<?>>typed(" + presenterClass + ")";
+		}
+
+		final String s = "\tpublic static class " + field.getGeneratedClassName() + " extends PresenterField<" + parentClassName + ">\n" +
 				"\t{\n" +
 				"\t\tpublic " + field.getGeneratedClassName() + "()\n" +
 				"\t\t{\n" +
-				"\t\t\tsuper(" + field.getTag() + ", PresenterType." + field.getType().name() + ", " + field.getFactory() + ".class, " + field.getPresenterId() + ", " + field.getFactoryParamsHolder() + ".class, " + field.getClazz().asElement() + ".class, " + defaultInstance + ");\n" +
+				"\t\t\tsuper(" + field.getTag() + ", PresenterType." + field.getType().name() + ", " + field.getFactory() + ".class, " + field.getPresenterId() + ", " + field.getFactoryParamsHolder() + ".class, " + presenterClass + ");\n" +
+				"\t\t}\n" +
+				"\n" +
+				"\t\t@Override\n" +
+				"\t\tpublic void bind(" + parentClassName + " target, MvpPresenter presenter)\n" +
+				"\t\t{\n" +
+				"\t\t\ttarget." + field.getName() + " = (" + field.getClazz() + ") presenter;\n" +
 				"\t\t}\n" +
 				"\n" +
 				"\t\t@Override\n" +
-				"\t\tpublic void setValue(MvpPresenter presenter)\n" +
+				"\t\tpublic MvpPresenter<?> providePresenter()\n" +
 				"\t\t{\n" +
-				"\t\t\tmTarget." + field.getName() + " = (" + field.getClazz() + ") presenter;\n" +
+				"\t\t\treturn " + defaultInstance + ";\n" +
 				"\t\t}\n" +
 				"\t}\n" +
 				"\n";
@@ -287,7 +334,7 @@ final class PresenterBinderClassGenerator extends ClassGenerator<VariableElement
 
 		public String getGeneratedClassName()
 		{
-			return mName + MvpProcessor.VIEW_STATE_CLASS_NAME_PROVIDER_SUFFIX;
+			return mName + MvpProcessor.PRESENTER_BINDER_INNER_SUFFIX;
 		}
 
 		public String getTag()
@@ -20,6 +20,10 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.IntersectionType;
@@ -126,4 +130,48 @@ final class Util
 		String className = typeElement.toString().substring(packageName.length());
 		return packageName + className.replaceAll("\\.", "\\$");
 	}
+
+	/**
+	 * @return true if class could be instantiated by generated code from any package: class and all enclosing classes
+	 * are public, nested classes are static and class has public empty constructor
+	 */
+	public static boolean isPublicInstantiable(TypeElement typeElement)
+	{
+		if (typeElement.getKind() != ElementKind.CLASS || typeElement.getModifiers().contains(Modifier.ABSTRACT))
+		{
+			return false;
+		}
+
+		Element element = typeElement;
+		while (element instanceof TypeElement)
+		{
+			if (!element.getModifiers().contains(Modifier.PUBLIC))
+			{
+				return false;
+			}
+
+			if (element.getEnclosingElement() instanceof TypeElement && !element.getModifiers().contains(Modifier.STATIC))
+			{
+				return false;
+			}
+
+			element = element.getEnclosingElement();
+		}
+
+		for (Element enclosedElement : typeElement.getEnclosedElements())
+		{
+			if (enclosedElement.getKind() != ElementKind.CONSTRUCTOR)
+			{
+				continue;
+			}
+
+			ExecutableElement constructor = (ExecutableElement) enclosedElement;
+			if (constructor.getModifiers().contains(Modifier.PUBLIC) && constructor.getParameters().isEmpty())
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
 }
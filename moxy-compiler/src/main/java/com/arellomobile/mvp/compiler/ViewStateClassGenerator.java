@@ -8,7 +8,9 @@ import java.util.Map;
 import java.util.Set;
 
 import com.arellomobile.mvp.MvpProcessor;
+import com.arellomobile.mvp.viewstate.Conflate;
 import com.arellomobile.mvp.viewstate.strategy.AddToEndStrategy;
+import com.arellomobile.mvp.viewstate.strategy.SkipStrategy;
 import com.arellomobile.mvp.viewstate.strategy.StateStrategyType;
 
 import javax.lang.model.element.AnnotationMirror;
@@ -38,6 +40,8 @@ final class ViewStateClassGenerator extends ClassGenerator<TypeElement>
 {
 	public static final String STATE_STRATEGY_TYPE_ANNOTATION = StateStrategyType.class.getName();
 	public static final String DEFAULT_STATE_STRATEGY = AddToEndStrategy.class.getName() + ".class";
+	public static final String CONFLATE_ANNOTATION = Conflate.class.getName();
+	public static final String SKIP_STATE_STRATEGY = SkipStrategy.class.getCanonicalName() + ".class";
 
 	private String mViewClassName;
 
@@ -55,31 +59,6 @@ final class ViewStateClassGenerator extends ClassGenerator<TypeElement>
 
 		mViewClassName = getClassName(typeElement);
 
-		String builder = "package " + fullClassName.substring(0, fullClassName.lastIndexOf(".")) + ";\n" +
-				"\n" +
-				"import com.arellomobile.mvp.viewstate.MvpViewState;\n" +
-				"import com.arellomobile.mvp.viewstate.ViewCommand;\n" +
-				"import com.arellomobile.mvp.viewstate.ViewCommands;\n" +
-				"import com.arellomobile.mvp.viewstate.strategy.AddToEndSingleStrategy;\n" +
-				"import com.arellomobile.mvp.viewstate.strategy.AddToEndStrategy;\n" +
-				"import com.arellomobile.mvp.viewstate.strategy.StateStrategy;\n" +
-				"\n" +
-				"public class " + fullClassName.substring(fullClassName.lastIndexOf(".") + 1) + "$$State extends MvpViewState<" + mViewClassName + "> implements " + mViewClassName + "\n" +
-				"{\n" +
-				"\tprivate ViewCommands<" + mViewClassName + "> mViewCommands = new ViewCommands<>();\n" +
-				"\n" +
-				"\t@Override\n" +
-				"\tpublic void restoreState(" + mViewClassName + " view)\n" +
-				"\t{\n" +
-				"\t\tif (mViewCommands.isEmpty())\n" +
-				"\t\t{\n" +
-				"\t\t\treturn;\n" +
-				"\t\t}\n" +
-				"\n" +
-				"\t\tmViewCommands.reapply(view);\n" +
-				"\t}\n" +
-				"\n";
-
 		List<Method> methods = new ArrayList<>();
 
 		String stateStrategyType = getStateStrategyType(typeElement);
@@ -112,6 +91,39 @@ final class ViewStateClassGenerator extends ClassGenerator<TypeElement>
 			methodsCounter.put(method.name, counter);
 		}
 
+		boolean hasConflatedMethods = false;
+		for (Method method : methods)
+		{
+			hasConflatedMethods |= method.conflate;
+		}
+
+		// not conflated commands are delivered after pending conflated ones
+		String flushConflated = hasConflatedMethods ? "\t\tflushConflated();\n\n" : "";
+
+		String builder = "package " + fullClassName.substring(0, fullClassName.lastIndexOf(".")) + ";\n" +
+				"\n" +
+				"import com.arellomobile.mvp.viewstate.MvpViewState;\n" +
+				"import com.arellomobile.mvp.viewstate.ViewCommand;\n" +
+				"import com.arellomobile.mvp.viewstate.strategy.AddToEndSingleStrategy;\n" +
+				"import com.arellomobile.mvp.viewstate.strategy.AddToEndStrategy;\n" +
+				"import com.arellomobile.mvp.viewstate.strategy.StateStrategies;\n" +
+				"import com.arellomobile.mvp.viewstate.strategy.StateStrategy;\n" +
+				"\n" +
+				"public class " + fullClassName.substring(fullClassName.lastIndexOf(".") + 1) + "$$State extends MvpViewState<" + mViewClassName + "> implements " + mViewClassName + "\n" +
+				"{\n" +
+				generateStrategyFields(methods) +
+				"\t@Override\n" +
+				"\tpublic void restoreState(" + mViewClassName + " view)\n" +
+				"\t{\n" +
+				"\t\tif (mViewCommands.isEmpty())\n" +
+				"\t\t{\n" +
+				"\t\t\treturn;\n" +
+				"\t\t}\n" +
+				"\n" +
+				"\t\tmViewCommands.reapply(view);\n" +
+				"\t}\n" +
+				"\n";
+
 		for (Method method : methods)
 		{
 			String throwTypesString = join(", ", method.thrownTypes);
@@ -138,25 +150,80 @@ final class ViewStateClassGenerator extends ClassGenerator<TypeElement>
 				index++;
 			}
 
+			// command, called not from main thread, calls same method of view state at main thread
+			String postToMainThread = "\t\tif (!isMainThread())\n" +
+					"\t\t{\n" +
+					"\t\t\tpostToMainThread(new " + method.commandClassName + "(" + argumentsString + "));\n" +
+					"\t\t\treturn;\n" +
+					"\t\t}\n" +
+					"\n";
+
+			if (isDirectDispatch(method))
+			{
+				// command of skip strategy never gets into view state, so it is created only for batch
+				builder += "\t@Override\n" +
+						"\tpublic " + method.genericType + " void " + method.name + "(" + join(", ", method.arguments) + ")" + throwTypesString + "\n" +
+						"\t{\n" +
+						postToMainThread +
+						"\t\tif (isInBatch())\n" +
+						"\t\t{\n" +
+						"\t\t\taddToBatch(new " + method.commandClassName + "(" + argumentsString + "));\n" +
+						"\t\t\treturn;\n" +
+						"\t\t}\n" +
+						"\n" +
+						"\t\tif (mViews == null || mViews.isEmpty())\n" +
+						"\t\t{\n" +
+						"\t\t\treturn;\n" +
+						"\t\t}\n" +
+						"\n" +
+						flushConflated +
+						"\t\tfor(" + mViewClassName + " view : mViews)\n" +
+						"\t\t{\n" +
+						"\t\t\tview." + method.name + "(" + argumentsString + ");\n" +
+						"\t\t}\n" +
+						"\t}\n" +
+						"\n";
+				continue;
+			}
+
 			String argumentClassName = method.commandClassName;
 			String argumentsWrapperNewInstance = "new " + method.commandClassName + "(" + argumentsString + ");\n";
 
+			String applyCommand;
+			if (method.conflate)
+			{
+				applyCommand = "\t\tconflate(command);\n";
+			}
+			else
+			{
+				applyCommand = flushConflated +
+						"\t\tfor(" + mViewClassName + " view : mViews)\n" +
+						"\t\t{\n" +
+						"\t\t\tview." + method.name + "(" + argumentsString + ");\n" +
+						"\t\t}\n";
+			}
+
 			builder += "\t@Override\n" +
 					"\tpublic " + method.genericType + " void " + method.name + "(" + join(", ", method.arguments) + ")" + throwTypesString + "\n" +
 					"\t{\n" +
+					postToMainThread +
 					"\t\t" + argumentClassName + " command = " + argumentsWrapperNewInstance +
-					"\t\tmViewCommands.beforeApply(command);\n" +
 					"\n" +
-					"\t\tif (mViews == null || mViews.isEmpty())\n" +
+					"\t\tif (isInBatch())\n" +
 					"\t\t{\n" +
+					"\t\t\taddToBatch(command);\n" +
 					"\t\t\treturn;\n" +
 					"\t\t}\n" +
 					"\n" +
-					"\t\tfor(" + mViewClassName + " view : mViews)\n" +
+					"\t\tmViewCommands.beforeApply(command);\n" +
+					"\n" +
+					"\t\tif (mViews == null || mViews.isEmpty())\n" +
 					"\t\t{\n" +
-					"\t\t\tview." + method.name + "(" + argumentsString + ");\n" +
+					"\t\t\treturn;\n" +
 					"\t\t}\n" +
 					"\n" +
+					applyCommand +
+					"\n" +
 					"\t\tmViewCommands.afterApply(command);\n" +
 					"\t}\n" +
 					"\n";
@@ -230,8 +297,16 @@ final class ViewStateClassGenerator extends ClassGenerator<TypeElement>
 
 			String strategyClass = defaultStrategy != null ? defaultStrategy : DEFAULT_STATE_STRATEGY;
 			String methodTag = "\"" + methodElement.getSimpleName() + "\"";
+			String capacity = "0";
+			boolean conflate = false;
 			for (AnnotationMirror annotationMirror : methodElement.getAnnotationMirrors())
 			{
+				if (annotationMirror.getAnnotationType().asElement().toString().equals(CONFLATE_ANNOTATION))
+				{
+					conflate = true;
+					continue;
+				}
+
 				if (!annotationMirror.getAnnotationType().asElement().toString().equals(STATE_STRATEGY_TYPE_ANNOTATION))
 				{
 					continue;
@@ -250,6 +325,10 @@ final class ViewStateClassGenerator extends ClassGenerator<TypeElement>
 					{
 						methodTag = elementValues.get(key).toString();
 					}
+					else if ("capacity()".equals(key.toString()))
+					{
+						capacity = elementValues.get(key).toString();
+					}
 				}
 			}
 
@@ -312,7 +391,7 @@ final class ViewStateClassGenerator extends ClassGenerator<TypeElement>
 				throwTypes.add(fillGenerics(methodTypes, typeMirror));
 			}
 
-			final Method method = new Method(generics, methodElement.getSimpleName().toString(), arguments, throwTypes, strategyClass, methodTag, getClassName(typeElement));
+			final Method method = new Method(generics, methodElement.getSimpleName().toString(), arguments, throwTypes, strategyClass, methodTag, capacity, conflate, getClassName(typeElement));
 
 			if (rootMethods.contains(method))
 			{
@@ -331,6 +410,14 @@ final class ViewStateClassGenerator extends ClassGenerator<TypeElement>
 				{
 					throw new IllegalStateException("Both " + existingMethod.enclosedClass + " and " + method.enclosedClass + " has method " + method.name + "(" + method.arguments.toString().substring(1, method.arguments.toString().length() - 1) + ") with difference tags. Override this method in " + mViewClassName + " or make tags equals");
 				}
+				if (!existingMethod.capacity.equals(method.capacity))
+				{
+					throw new IllegalStateException("Both " + existingMethod.enclosedClass + " and " + method.enclosedClass + " has method " + method.name + "(" + method.arguments.toString().substring(1, method.arguments.toString().length() - 1) + ") with difference capacities. Override this method in " + mViewClassName + " or make capacities equals");
+				}
+				if (existingMethod.conflate != method.conflate)
+				{
+					throw new IllegalStateException("Both " + existingMethod.enclosedClass + " and " + method.enclosedClass + " has method " + method.name + "(" + method.arguments.toString().substring(1, method.arguments.toString().length() - 1) + ") and only one of them is conflated. Override this method in " + mViewClassName + " or make conflation equals");
+				}
 
 				continue;
 			}
@@ -355,6 +442,56 @@ final class ViewStateClassGenerator extends ClassGenerator<TypeElement>
 		return name;
 	}
 
+	/**
+	 * Strategies are resolved once per class of view state. Each command gets strategy instance by field read
+	 *
+	 * @return declarations of static fields with strategies, used by methods. Sets {@link Method#stateStrategyField}
+	 */
+	private String generateStrategyFields(List<Method> methods)
+	{
+		Map<String, String> fieldNames = new HashMap<>();
+		String fields = "";
+
+		for (Method method : methods)
+		{
+			String fieldName = fieldNames.get(method.stateStrategy);
+
+			if (fieldName == null)
+			{
+				String strategyClassName = method.stateStrategy.substring(0, method.stateStrategy.length() - ".class".length());
+				fieldName = strategyClassName.substring(strategyClassName.lastIndexOf('.') + 1).replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+
+				if (fieldNames.containsValue(fieldName))
+				{
+					fieldName += "_" + fieldNames.size();
+				}
+
+				fieldNames.put(method.stateStrategy, fieldName);
+				fields += "\tprivate static final StateStrategy " + fieldName + " = StateStrategies.get(" + method.stateStrategy + ");\n";
+			}
+
+			method.stateStrategyField = fieldName;
+		}
+
+		if (!fields.isEmpty())
+		{
+			fields += "\n";
+		}
+
+		return fields;
+	}
+
+	/**
+	 * Methods of {@link SkipStrategy} are applied to attached views directly, without command and calls of strategy,
+	 * unless view state is in batch. Conflated methods need command to keep it till frame
+	 *
+	 * @return true if method is applied to views directly
+	 */
+	private static boolean isDirectDispatch(Method method)
+	{
+		return SKIP_STATE_STRATEGY.equals(method.stateStrategy) && !method.conflate;
+	}
+
 	private String generateLocalViewCommand(String viewClassName, String builder, List<Method> methods)
 	{
 		for (Method method : methods)
@@ -387,7 +524,7 @@ final class ViewStateClassGenerator extends ClassGenerator<TypeElement>
 					argumentsInit +
 					"\t\t" + method.commandClassName + "(" + join(", ", method.arguments) + ")\n" +
 					"\t\t{\n" +
-					"\t\t\tsuper(" + method.tag + ", " + method.stateStrategy + ");\n" +
+					"\t\t\tsuper(" + method.tag + ", " + method.stateStrategyField + (method.capacity.equals("0") ? "" : ", " + method.capacity) + ");\n" +
 					argumentsBind +
 					"\t\t}\n" +
 					"\n" +
@@ -434,10 +571,13 @@ final class ViewStateClassGenerator extends ClassGenerator<TypeElement>
 		List<Argument> arguments;
 		List<String> thrownTypes;
 		String stateStrategy;
+		String stateStrategyField;
 		String tag;
+		String capacity;
+		boolean conflate;
 		String enclosedClass;
 
-		Method(String genericType, String name, List<Argument> arguments, List<String> thrownTypes, String stateStrategy, String methodTag, String enclosedClass)
+		Method(String genericType, String name, List<Argument> arguments, List<String> thrownTypes, String stateStrategy, String methodTag, String capacity, boolean conflate, String enclosedClass)
 		{
 			this.genericType = genericType;
 			this.name = name;
@@ -445,6 +585,8 @@ final class ViewStateClassGenerator extends ClassGenerator<TypeElement>
 			this.thrownTypes = thrownTypes;
 			this.stateStrategy = stateStrategy;
 			this.tag = methodTag;
+			this.capacity = capacity;
+			this.conflate = conflate;
 			this.enclosedClass = enclosedClass;
 		}
 
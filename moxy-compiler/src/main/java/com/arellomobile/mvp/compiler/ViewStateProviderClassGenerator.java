@@ -1,5 +1,6 @@
 package com.arellomobile.mvp.compiler;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -35,10 +36,12 @@ final class ViewStateProviderClassGenerator extends ClassGenerator<TypeElement>
 	public static final String MVP_PRESENTER_CLASS = MvpPresenter.class.getCanonicalName();
 
 	private Set<TypeElement> mUsedViews;
+	private List<String> mPresenters;
 
 	public ViewStateProviderClassGenerator()
 	{
 		mUsedViews = new HashSet<>();
+		mPresenters = new ArrayList<>();
 	}
 
 	@Override
@@ -46,7 +49,9 @@ final class ViewStateProviderClassGenerator extends ClassGenerator<TypeElement>
 	{
 		String parentClassName = typeElement.toString();
 
-		final String viewClassName = parentClassName.substring(parentClassName.lastIndexOf(".") + 1);
+		String fullClassName = Util.getFullClassName(typeElement);
+
+		final String viewClassName = fullClassName.substring(fullClassName.lastIndexOf(".") + 1);
 
 		String viewState = getViewStateClassFromAnnotationParams(typeElement);
 		if (viewState == null)
@@ -70,27 +75,31 @@ final class ViewStateProviderClassGenerator extends ClassGenerator<TypeElement>
 			}
 		}
 
-		String builder = "package " + parentClassName.substring(0, parentClassName.lastIndexOf(".")) + ";\n" +
+		mPresenters.add(fullClassName);
+
+		String builder = "package " + fullClassName.substring(0, fullClassName.lastIndexOf(".")) + ";\n" +
+				"\n" +
+				"import com.arellomobile.mvp.ViewStateProvider;\n" +
+				"import com.arellomobile.mvp.viewstate.MvpViewState;\n" +
 				"\n" +
-				"import com.arellomobile.mvp.ViewStateClassNameProvider;\n" +
-				"import java.lang.String;\n" +
-				"\n" + "public class " + viewClassName + MvpProcessor.VIEW_STATE_CLASS_NAME_PROVIDER_SUFFIX + " extends ViewStateClassNameProvider" + "\n" +
+				"public class " + viewClassName + MvpProcessor.VIEW_STATE_PROVIDER_SUFFIX + " extends ViewStateProvider\n" +
 				"{\n" +
-				"\tpublic " + viewClassName + MvpProcessor.VIEW_STATE_CLASS_NAME_PROVIDER_SUFFIX + "()\n" +
+				"\t@Override\n" +
+				"\tpublic MvpViewState getViewState()\n" +
 				"\t{\n";
 		if (viewState == null)
 		{
-			builder += "\t\tthrow new RuntimeException(" + parentClassName + " should has view\");\n";
+			builder += "\t\tthrow new RuntimeException(\"" + parentClassName + " should has view\");\n";
 		}
 		else
 		{
-			builder += "\t\tsuper(\"" + viewState + "\");\n";
+			builder += "\t\treturn new " + viewState + "();\n";
 		}
 		builder += "\t}\n" +
 				"}";
 
 		ClassGeneratingParams classGeneratingParams = new ClassGeneratingParams();
-		classGeneratingParams.setName(parentClassName + MvpProcessor.VIEW_STATE_CLASS_NAME_PROVIDER_SUFFIX);
+		classGeneratingParams.setName(fullClassName + MvpProcessor.VIEW_STATE_PROVIDER_SUFFIX);
 		classGeneratingParams.setBody(builder);
 		classGeneratingParamsList.add(classGeneratingParams);
 
@@ -199,4 +208,9 @@ final class ViewStateProviderClassGenerator extends ClassGenerator<TypeElement>
 	{
 		return mUsedViews;
 	}
+
+	public List<String> getPresenters()
+	{
+		return mPresenters;
+	}
 }
@@ -0,0 +1,63 @@
+package com.arellomobile.mvp;
+
+/**
+ * Date: 09.03.2016
+ * Time: 12:10
+ * <p>
+ * Limits GLOBAL presenters retained by {@link PresenterStore}. When limit is exceeded, least recently used presenters
+ * without attached views are removed from store and destroyed via {@link MvpPresenter#onDestroy()}.
+ * <p>
+ * Use {@link #maxCount(int)} to limit count of presenters, or {@link #maxWeight(long)} to limit sum of
+ * {@link MvpPresenter#getPresenterWeight()}
+ *
+ * @author Alexander Blinov
+ */
+public final class CapacityPolicy
+{
+	private final long mCapacity;
+	private final boolean mWeighted;
+
+	private CapacityPolicy(long capacity, boolean weighted)
+	{
+		if (capacity <= 0)
+		{
+			throw new IllegalArgumentException("capacity should be positive: " + capacity);
+		}
+
+		mCapacity = capacity;
+		mWeighted = weighted;
+	}
+
+	/**
+	 * @param maxCount max count of retained GLOBAL presenters
+	 * @return count based policy
+	 */
+	public static CapacityPolicy maxCount(int maxCount)
+	{
+		return new CapacityPolicy(maxCount, false);
+	}
+
+	/**
+	 * @param maxWeight max sum of weights of retained GLOBAL presenters
+	 * @return weight based policy
+	 */
+	public static CapacityPolicy maxWeight(long maxWeight)
+	{
+		return new CapacityPolicy(maxWeight, true);
+	}
+
+	long getCapacity()
+	{
+		return mCapacity;
+	}
+
+	long weightOf(MvpPresenter<?> presenter)
+	{
+		if (!mWeighted)
+		{
+			return 1;
+		}
+
+		return Math.max(0, presenter.getPresenterWeight());
+	}
+}
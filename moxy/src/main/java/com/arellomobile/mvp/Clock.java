@@ -0,0 +1,30 @@
+package com.arellomobile.mvp;
+
+/**
+ * Date: 10.03.2016
+ * Time: 14:32
+ * <p>
+ * Source of time for {@link PresenterStore}. Could be replaced by tests or by app, which wants to control expiration
+ * of presenters
+ *
+ * @author Alexander Blinov
+ */
+public interface Clock
+{
+	/**
+	 * Monotonic clock, based on {@link System#nanoTime()}
+	 */
+	Clock SYSTEM = new Clock()
+	{
+		@Override
+		public long uptimeMillis()
+		{
+			return System.nanoTime() / 1000000;
+		}
+	};
+
+	/**
+	 * @return milliseconds since some fixed moment. Value should never decrease
+	 */
+	long uptimeMillis();
+}
@@ -0,0 +1,102 @@
+package com.arellomobile.mvp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Date: 02.03.2016
+ * Time: 15:10
+ * <p>
+ * Registry of application with many generated registries(one per package of each module). Lookup is passed to registry
+ * of package of class, so it costs one map lookup. Classes of packages without registry are found by name.
+ *
+ * @author Alexander Blinov
+ */
+final class CompositeMvpRegistry extends MvpRegistry
+{
+	private final List<MvpRegistry> mRegistries;
+	private final Map<String, MvpRegistry> mPackageRegistries;
+
+	CompositeMvpRegistry(List<MvpRegistry> registries)
+	{
+		mRegistries = registries;
+		mPackageRegistries = new HashMap<>();
+
+		for (MvpRegistry registry : registries)
+		{
+			mPackageRegistries.put(getPackageName(registry.getClass()), registry);
+		}
+	}
+
+	@Override
+	public PresenterBinder<?> createPresenterBinder(Class<?> presentersContainer)
+	{
+		return getPackageRegistry(presentersContainer).createPresenterBinder(presentersContainer);
+	}
+
+	@Override
+	public ViewStateProvider createViewStateProvider(Class<?> presenterClass)
+	{
+		return getPackageRegistry(presenterClass).createViewStateProvider(presenterClass);
+	}
+
+	@Override
+	public Map<Class<? extends PresenterFactory<?, ?>>, PresenterFactory<?, ?>> getPresenterFactories()
+	{
+		Map<Class<? extends PresenterFactory<?, ?>>, PresenterFactory<?, ?>> presenterFactories = new HashMap<>();
+
+		for (MvpRegistry registry : mRegistries)
+		{
+			presenterFactories.putAll(registry.getPresenterFactories());
+		}
+
+		return presenterFactories;
+	}
+
+	@Override
+	public Map<Class<? extends ParamsHolder<?>>, ParamsHolder<?>> getParamsHolders()
+	{
+		Map<Class<? extends ParamsHolder<?>>, ParamsHolder<?>> paramsHolders = new HashMap<>();
+
+		for (MvpRegistry registry : mRegistries)
+		{
+			paramsHolders.putAll(registry.getParamsHolders());
+		}
+
+		return paramsHolders;
+	}
+
+	@Override
+	public Collection<Class<?>> getPresentersContainers()
+	{
+		List<Class<?>> presentersContainers = new ArrayList<>();
+
+		for (MvpRegistry registry : mRegistries)
+		{
+			presentersContainers.addAll(registry.getPresentersContainers());
+		}
+
+		return presentersContainers;
+	}
+
+	private MvpRegistry getPackageRegistry(Class<?> clazz)
+	{
+		MvpRegistry registry = mPackageRegistries.get(getPackageName(clazz));
+
+		return registry != null ? registry : getReflectiveRegistry();
+	}
+
+	/**
+	 * {@link Class#getPackage()} could return null for classes of some class loaders, so package is taken from name
+	 */
+	private static String getPackageName(Class<?> clazz)
+	{
+		String className = clazz.getName();
+		int lastDot = className.lastIndexOf('.');
+
+		return lastDot < 0 ? "" : className.substring(0, lastDot);
+	}
+}
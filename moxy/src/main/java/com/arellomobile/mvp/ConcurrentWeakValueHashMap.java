@@ -0,0 +1,276 @@
+package com.arellomobile.mvp;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Date: 15.03.2016
+ * Time: 16:08
+ * <p>
+ * Thread safe variant of {@link WeakValueHashMap}. Values are held by weak references in {@link ConcurrentHashMap},
+ * so reads are lock free.
+ * <p>
+ * Entries of collected values are removed from reference queue by each operation, but no more than
+ * {@link #DRAIN_LIMIT} per call, so cost of cleanup is spread between operations. Entry is removed only if key is still
+ * mapped to collected reference, so value, which was put again for same key, is never lost.
+ *
+ * @author Alexander Blinov
+ */
+public class ConcurrentWeakValueHashMap<K, V> extends AbstractMap<K, V>
+{
+	private static final int DRAIN_LIMIT = 16;
+
+	private final ConcurrentMap<K, WeakValue<K, V>> mReferences = new ConcurrentHashMap<>();
+	private final ReferenceQueue<V> mQueue = new ReferenceQueue<>();
+
+	@Override
+	public V get(Object key)
+	{
+		drainQueue(DRAIN_LIMIT);
+
+		return getReferenceValue(mReferences.get(key));
+	}
+
+	@Override
+	public V put(K key, V value)
+	{
+		if (value == null)
+		{
+			throw new NullPointerException("value should not be null");
+		}
+
+		drainQueue(DRAIN_LIMIT);
+
+		return getReferenceValue(mReferences.put(key, new WeakValue<>(key, value, mQueue)));
+	}
+
+	@Override
+	public V remove(Object key)
+	{
+		drainQueue(DRAIN_LIMIT);
+
+		return getReferenceValue(mReferences.remove(key));
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return get(key) != null;
+	}
+
+	@Override
+	public void clear()
+	{
+		mReferences.clear();
+
+		drainQueue(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Size is taken without walk over entries, so it is upper bound: it includes entries, which values are already
+	 * collected, but not drained yet. Views of map count only live entries
+	 *
+	 * @return upper bound of entries count
+	 */
+	@Override
+	public int size()
+	{
+		drainQueue(DRAIN_LIMIT);
+
+		return mReferences.size();
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		drainQueue(DRAIN_LIMIT);
+
+		return !values().iterator().hasNext();
+	}
+
+	/**
+	 * @return live read only view of keys, which values are not collected. Iteration is weakly consistent
+	 */
+	@Override
+	public Set<K> keySet()
+	{
+		drainQueue(DRAIN_LIMIT);
+
+		return new AbstractSet<K>()
+		{
+			@Override
+			public Iterator<K> iterator()
+			{
+				return new WeakValueHashMap.LiveIterator<WeakValue<K, V>, K>(mReferences.values().iterator())
+				{
+					@Override
+					protected K map(WeakValue<K, V> reference, Object value)
+					{
+						return reference.mKey;
+					}
+				};
+			}
+
+			@Override
+			public boolean contains(Object key)
+			{
+				return containsKey(key);
+			}
+
+			@Override
+			public int size()
+			{
+				return liveCount();
+			}
+		};
+	}
+
+	/**
+	 * Entries are immutable snapshots of key and value. Use {@link #visitLive(WeakValueHashMap.Visitor)} to walk map
+	 * without allocation of entries
+	 *
+	 * @return live read only view of entries, which values are not collected. Iteration is weakly consistent
+	 */
+	@Override
+	public Set<Map.Entry<K, V>> entrySet()
+	{
+		drainQueue(DRAIN_LIMIT);
+
+		return new AbstractSet<Map.Entry<K, V>>()
+		{
+			@Override
+			public Iterator<Map.Entry<K, V>> iterator()
+			{
+				return new WeakValueHashMap.LiveIterator<WeakValue<K, V>, Map.Entry<K, V>>(mReferences.values().iterator())
+				{
+					@SuppressWarnings("unchecked")
+					@Override
+					protected Map.Entry<K, V> map(WeakValue<K, V> reference, Object value)
+					{
+						return new SimpleImmutableEntry<>(reference.mKey, (V) value);
+					}
+				};
+			}
+
+			@Override
+			public int size()
+			{
+				return liveCount();
+			}
+		};
+	}
+
+	/**
+	 * @return live read only view of values, which are not collected. Iteration is weakly consistent
+	 */
+	@Override
+	public Collection<V> values()
+	{
+		drainQueue(DRAIN_LIMIT);
+
+		return new AbstractCollection<V>()
+		{
+			@Override
+			public Iterator<V> iterator()
+			{
+				return new WeakValueHashMap.LiveIterator<WeakValue<K, V>, V>(mReferences.values().iterator())
+				{
+					@SuppressWarnings("unchecked")
+					@Override
+					protected V map(WeakValue<K, V> reference, Object value)
+					{
+						return (V) value;
+					}
+				};
+			}
+
+			@Override
+			public int size()
+			{
+				return liveCount();
+			}
+		};
+	}
+
+	/**
+	 * Visits entries, which values are not collected, without allocation of entries(e.g. to dump map for diagnostics)
+	 *
+	 * @param visitor visitor of entries
+	 */
+	public void visitLive(WeakValueHashMap.Visitor<? super K, ? super V> visitor)
+	{
+		drainQueue(DRAIN_LIMIT);
+
+		for (WeakValue<K, V> valueRef : mReferences.values())
+		{
+			V value = valueRef.get();
+			if (value != null)
+			{
+				visitor.visit(valueRef.mKey, value);
+			}
+		}
+	}
+
+	/**
+	 * @return count of entries, which values are not collected. Count is weakly consistent, like iteration of views
+	 */
+	private int liveCount()
+	{
+		drainQueue(DRAIN_LIMIT);
+
+		int count = 0;
+		for (WeakValue<K, V> valueRef : mReferences.values())
+		{
+			if (valueRef.get() != null)
+			{
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	private V getReferenceValue(WeakValue<K, V> valueRef)
+	{
+		return valueRef == null ? null : valueRef.get();
+	}
+
+	/**
+	 * Removes entries of collected values. Poll of empty queue does not take lock
+	 *
+	 * @param maxCount max count of references to drain
+	 */
+	@SuppressWarnings("unchecked")
+	private void drainQueue(int maxCount)
+	{
+		WeakValue<K, V> valueRef;
+		for (int i = 0; i < maxCount && (valueRef = (WeakValue<K, V>) mQueue.poll()) != null; i++)
+		{
+			mReferences.remove(valueRef.mKey, valueRef);
+		}
+	}
+
+	/**
+	 * Reference keeps its key for {@link #drainQueue(int)}. References are compared by identity, so drain removes only
+	 * collected reference
+	 */
+	private static class WeakValue<K, V> extends WeakReference<V>
+	{
+		private final K mKey;
+
+		WeakValue(K key, V value, ReferenceQueue<V> queue)
+		{
+			super(value, queue);
+			mKey = key;
+		}
+	}
+}
@@ -5,8 +5,6 @@ import java.util.List;
 
 import android.os.Bundle;
 
-import com.arellomobile.mvp.presenter.PresenterType;
-
 /**
  * Date: 18-Dec-15
  * Time: 13:51
@@ -25,6 +23,10 @@ import com.arellomobile.mvp.presenter.PresenterType;
  * Every {@link Object} can only be linked with one {@link MvpDelegate} instance,
  * so the instance returned from {@link #MvpDelegate(Object)}} should be kept
  * until the Object is destroyed.
+ * <p>
+ * Each created delegate owns {@link PresenterScope} with its LOCAL presenters. Scope is child of parent delegate
+ * scope, of scope set by {@link #setParentScope(PresenterScope)}, or of {@link PresenterStore#getRootScope() root scope}.
+ * So destroying of delegate destroys presenters of all its child delegates in one pass.
  *
  * @author Alexander Blinov
  * @author Konstantin Tckhovrebov
@@ -39,6 +41,8 @@ public class MvpDelegate<Delegated>
 	private boolean mStateSaved;
 	private boolean mIsAttached;
 	private MvpDelegate mParentDelegate;
+	private PresenterScope mParentScope;
+	private PresenterScope mScope;
 	private List<MvpPresenter<? super Delegated>> mPresenters;
 	private List<MvpDelegate> mChildDelegates;
 	private Bundle mBundle;
@@ -66,6 +70,30 @@ public class MvpDelegate<Delegated>
 		delegate.addChildDelegate(this);
 	}
 
+	/**
+	 * Sets scope(e.g. scope of user flow), which will be parent of this delegate scope. So closing of given scope
+	 * destroys LOCAL presenters of this delegate. Scope of parent delegate is used by default
+	 *
+	 * @param scope parent scope
+	 */
+	public void setParentScope(PresenterScope scope)
+	{
+		if (mScope != null)
+		{
+			throw new IllegalStateException("You should call setParentScope() before first onCreate()");
+		}
+
+		mParentScope = scope;
+	}
+
+	/**
+	 * @return scope with LOCAL presenters of this delegate, or null if delegate is not created
+	 */
+	public PresenterScope getPresenterScope()
+	{
+		return mScope;
+	}
+
 	private void addChildDelegate(MvpDelegate delegate)
 	{
 		mChildDelegates.add(delegate);
@@ -108,8 +136,14 @@ public class MvpDelegate<Delegated>
 			mDelegateTag = bundle.getString(mKeyTags);
 		}
 
+		if (mScope != null)
+		{
+			mScope.release();
+		}
+		mScope = getParentScope().openChild();
+
 		//bind presenters to view
-		mPresenters = MvpFacade.getInstance().getMvpProcessor().getMvpPresenters(mDelegated, mDelegateTag);
+		mPresenters = MvpFacade.getInstance().getMvpProcessor().getMvpPresenters(mDelegated, mDelegateTag, mScope);
 
 		for (MvpDelegate childDelegate : mChildDelegates)
 		{
@@ -163,13 +197,25 @@ public class MvpDelegate<Delegated>
 	}
 
 	/**
-	 * <p>Destroy presenters if they are not needed.</p>
+	 * <p>Destroy presenters if they are not needed. Scope of delegate is closed, so presenters of child delegates
+	 * are destroyed too, unless their state is saved.</p>
 	 */
 	public void onDestroy()
 	{
-		if (!mStateSaved)
+		if (mScope != null && !mStateSaved)
 		{
-			destroyPresenters();
+			// presenters of child delegates with saved state should survive
+			for (MvpDelegate<?> childDelegate : mChildDelegates)
+			{
+				childDelegate.releaseScopeIfStateSaved();
+			}
+
+			mScope.close();
+		}
+		else if (mScope != null)
+		{
+			// presenters are retained in store, and they will be registered in scope of recreated delegate
+			mScope.release();
 		}
 
 		for (MvpDelegate<?> childDelegate : mChildDelegates)
@@ -193,17 +239,32 @@ public class MvpDelegate<Delegated>
 		}
 	}
 
-	private void destroyPresenters()
+	private PresenterScope getParentScope()
 	{
-		PresenterStore presenterStore = MvpFacade.getInstance().getPresenterStore();
+		if (mParentScope != null)
+		{
+			return mParentScope;
+		}
 
-		for (MvpPresenter<?> presenter : mPresenters)
+		if (mParentDelegate != null && mParentDelegate.mScope != null && !mParentDelegate.mScope.isClosed())
 		{
-			if (presenter.getPresenterType() == PresenterType.LOCAL)
-			{
-				presenter.onDestroy();
-				presenterStore.remove(PresenterType.LOCAL, presenter.getTag(), presenter.getClass());
-			}
+			return mParentDelegate.mScope;
+		}
+
+		return MvpFacade.getInstance().getPresenterStore().getRootScope();
+	}
+
+	private void releaseScopeIfStateSaved()
+	{
+		if (mStateSaved && mScope != null)
+		{
+			mScope.release();
+			return;
+		}
+
+		for (MvpDelegate<?> childDelegate : mChildDelegates)
+		{
+			childDelegate.releaseScopeIfStateSaved();
 		}
 	}
 
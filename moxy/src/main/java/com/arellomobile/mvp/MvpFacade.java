@@ -1,5 +1,11 @@
 package com.arellomobile.mvp;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
  * Date: 17-Dec-15
  * Time: 19:00
@@ -34,9 +40,10 @@ public final class MvpFacade
 
 	private MvpFacade()
 	{
+		mMvpRegistry = MvpRegistry.create();
 		mPresenterStore = new PresenterStore();
 		mMvpProcessor = new MvpProcessor();
-		mPresenterFactoryStore = new PresenterFactoryStore();
+		mPresenterFactoryStore = new PresenterFactoryStore(mMvpRegistry);
 	}
 
 	private PresenterStore mPresenterStore;
@@ -45,6 +52,8 @@ public final class MvpFacade
 
 	private PresenterFactoryStore mPresenterFactoryStore;
 
+	private MvpRegistry mMvpRegistry;
+
 	public PresenterStore getPresenterStore()
 	{
 		return mPresenterStore;
@@ -59,4 +68,76 @@ public final class MvpFacade
 	{
 		return mMvpProcessor;
 	}
+
+	public MvpRegistry getMvpRegistry()
+	{
+		return mMvpRegistry;
+	}
+
+	/**
+	 * Resolves binders, view states, state strategies and factories of all classes known by compiler at background, so
+	 * first {@link MvpDelegate#onCreate()} does not spend time on class loading and lookups. Presenters containers are
+	 * listed by {@link MvpRegistry}, and resolved results are cached by {@link MvpProcessor}, like at first use of
+	 * container. It is safe to use Moxy while warm up is in progress
+	 *
+	 * @param executor executor, which will run warm up. Should not be main thread executor
+	 */
+	public void warmUp(Executor executor)
+	{
+		executor.execute(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				for (Class<?> presentersContainer : mMvpRegistry.getPresentersContainers())
+				{
+					warmUp(presentersContainer);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Same as {@link #warmUp(Executor)}, but only for given presenters containers and presenters
+	 *
+	 * @param executor executor, which will run warm up. Should not be main thread executor
+	 * @param classes  presenters containers(e.g. activities and fragments) and presenters
+	 */
+	public void warmUp(Executor executor, Class<?>... classes)
+	{
+		final Collection<Class<?>> classesToWarmUp = Arrays.asList(classes.clone());
+
+		executor.execute(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				for (Class<?> clazz : classesToWarmUp)
+				{
+					warmUp(clazz);
+				}
+			}
+		});
+	}
+
+	private void warmUp(Class<?> clazz)
+	{
+		try
+		{
+			mMvpProcessor.warmUp(clazz);
+		}
+		catch (RuntimeException e)
+		{
+			logWarmUpError(clazz, e);
+		}
+	}
+
+	/**
+	 * Warm up is only an optimization, so error does not stop it. Same error will be thrown at main thread, when class
+	 * will be used
+	 */
+	private static void logWarmUpError(Class<?> clazz, RuntimeException e)
+	{
+		Logger.getLogger(MvpFacade.class.getName()).log(Level.WARNING, "Warm up of " + clazz.getName() + " failed", e);
+	}
 }
@@ -1,8 +1,7 @@
 package com.arellomobile.mvp;
 
-import java.util.Collections;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.arellomobile.mvp.presenter.PresenterType;
 import com.arellomobile.mvp.viewstate.MvpViewState;
@@ -20,15 +19,20 @@ public abstract class MvpPresenter<View extends MvpView>
 	private boolean mFirstLaunch = true;
 	private String mTag;
 	private PresenterType mPresenterType;
+	private PresenterScope mPresenterScope;
 	private Set<View> mViews;
 	private View mViewStateAsView;
 	private MvpViewState<View> mViewState;
+	// guards attach and detach of views against concurrent eviction from PresenterStore
+	private final ReentrantLock mViewsLock = new ReentrantLock();
+	// count of views, which are attaching to view state now. Guarded by mViewsLock
+	private int mAttachingViews;
 
 	public MvpPresenter()
 	{
 		Binder.bind(this);
 
-		mViews = Collections.newSetFromMap(new WeakHashMap<View, Boolean>());
+		mViews = new WeakIdentitySet<>();
 	}
 
 	/**
@@ -40,18 +44,45 @@ public abstract class MvpPresenter<View extends MvpView>
 	 */
 	public void attachView(View view)
 	{
-		if (mViewState != null)
+		boolean firstLaunch;
+
+		// only state of presenter is changed under lock, restore of view state and callbacks are called without it
+		mViewsLock.lock();
+		try
 		{
-			mViewState.attachView(view);
+			if (mViewState != null)
+			{
+				mAttachingViews++;
+			}
+			else
+			{
+				mViews.add(view);
+			}
+
+			firstLaunch = mFirstLaunch;
+			mFirstLaunch = false;
 		}
-		else
+		finally
 		{
-			mViews.add(view);
+			mViewsLock.unlock();
 		}
-		if (mFirstLaunch)
+
+		if (mViewState != null)
 		{
-			mFirstLaunch = false;
+			try
+			{
+				mViewState.attachView(view);
+			}
+			finally
+			{
+				mViewsLock.lock();
+				mAttachingViews--;
+				mViewsLock.unlock();
+			}
+		}
 
+		if (firstLaunch)
+		{
 			onFirstViewAttach();
 		}
 	}
@@ -75,13 +106,21 @@ public abstract class MvpPresenter<View extends MvpView>
 	 */
 	public void detachView(View view)
 	{
-		if (mViewState != null)
+		mViewsLock.lock();
+		try
 		{
-			mViewState.detachView(view);
+			if (mViewState != null)
+			{
+				mViewState.detachView(view);
+			}
+			else
+			{
+				mViews.remove(view);
+			}
 		}
-		else
+		finally
 		{
-			mViews.remove(view);
+			mViewsLock.unlock();
 		}
 	}
 
@@ -106,6 +145,33 @@ public abstract class MvpPresenter<View extends MvpView>
 		return mViewStateAsView;
 	}
 
+	/**
+	 * Starts batch of commands of view state, e.g. before update of many widgets by one response. Does nothing if
+	 * presenter has no view state
+	 *
+	 * @see MvpViewState#beginBatch()
+	 */
+	public void beginViewStateBatch()
+	{
+		if (mViewState != null)
+		{
+			mViewState.beginBatch();
+		}
+	}
+
+	/**
+	 * Delivers commands of batch, started by {@link #beginViewStateBatch()}, to views as one unit
+	 *
+	 * @see MvpViewState#commitBatch()
+	 */
+	public void commitViewStateBatch()
+	{
+		if (mViewState != null)
+		{
+			mViewState.commitBatch();
+		}
+	}
+
 	/**
 	 * Check if view is in restore state or not
 	 *
@@ -134,6 +200,33 @@ public abstract class MvpPresenter<View extends MvpView>
 		mViewState = (MvpViewState) viewState;
 	}
 
+	/**
+	 * Checks, that presenter has no attached views, and blocks attach of views until {@link #unlockViews()}. Does not
+	 * wait for attach or detach, which is in progress: such presenter is considered as used
+	 *
+	 * @return true if presenter has no views, and attach of views is blocked
+	 */
+	boolean tryLockDetached()
+	{
+		if (mViewsLock.isHeldByCurrentThread() || !mViewsLock.tryLock())
+		{
+			return false;
+		}
+
+		if (mAttachingViews == 0 && getAttachedViews().isEmpty())
+		{
+			return true;
+		}
+
+		mViewsLock.unlock();
+		return false;
+	}
+
+	void unlockViews()
+	{
+		mViewsLock.unlock();
+	}
+
 	PresenterType getPresenterType()
 	{
 		return mPresenterType;
@@ -154,6 +247,21 @@ public abstract class MvpPresenter<View extends MvpView>
 		mTag = tag;
 	}
 
+	/**
+	 * Guarded by lock of scopes tree
+	 *
+	 * @return scope, which owns this presenter, or null
+	 */
+	PresenterScope getPresenterScope()
+	{
+		return mPresenterScope;
+	}
+
+	void setPresenterScope(PresenterScope presenterScope)
+	{
+		mPresenterScope = presenterScope;
+	}
+
 	/**
 	 * <p>Called before reference on this presenter will be cleared and instance of presenter
 	 * will be never used.</p>
@@ -162,54 +270,33 @@ public abstract class MvpPresenter<View extends MvpView>
 	{
 	}
 
+	/**
+	 * <p>Estimate of memory, retained by this presenter(e.g. size of loaded data). Used by
+	 * {@link CapacityPolicy#maxWeight(long)} to decide, how many GLOBAL presenters could be retained.</p>
+	 * <p>Weight is requested once, when presenter is added to {@link PresenterStore}.</p>
+	 *
+	 * @return non-negative weight of presenter. 1 by default
+	 */
+	public long getPresenterWeight()
+	{
+		return 1;
+	}
+
 	private static class Binder
 	{
 		static void bind(MvpPresenter presenter)
 		{
-			ViewStateClassNameProvider viewStateClassNameProvider;
-			String viewStateClassNameProviderClassName = presenter.getClass().getName() + "$$ViewStateClassNameProvider";
+			ViewStateProvider viewStateProvider = MvpFacade.getInstance().getMvpProcessor().getViewStateProvider(presenter.getClass());
 
-			//noinspection TryWithIdenticalCatches
-			try
-			{
-				viewStateClassNameProvider = (ViewStateClassNameProvider) Class.forName(viewStateClassNameProviderClassName).newInstance();
-			}
-			catch (ClassNotFoundException e)
+			if (viewStateProvider == null)
 			{
 				return;
 			}
-			catch (InstantiationException e)
-			{
-				throw new RuntimeException("Unable to instantiate " + viewStateClassNameProviderClassName + ": " +
-						"make sure class name exists, " +
-						"is public, and " +
-						"has an empty constructor that is public", e);
-			}
-			catch (IllegalAccessException e)
-			{
-				throw new RuntimeException("Unable to instantiate " + viewStateClassNameProviderClassName + ": " +
-						"make sure class name exists, " +
-						"is public, and " +
-						"has an empty constructor that is public", e);
-			}
-
-			final String viewStateClassName = viewStateClassNameProvider.getViewStateClassName();
 
-			Object viewState;
-			try
-			{
-				viewState = Class.forName(viewStateClassName).newInstance();
-			}
-			catch (Exception e)
-			{
-				throw new RuntimeException("Unable to instantiate " + viewStateClassName + ": " +
-						"make sure class name exists, " +
-						"is public, and " +
-						"has an empty constructor that is public", e);
-			}
+			MvpViewState viewState = viewStateProvider.getViewState();
 
 			presenter.mViewStateAsView = (MvpView) viewState;
-			presenter.mViewState = (MvpViewState) viewState;
+			presenter.mViewState = viewState;
 		}
 	}
 }
@@ -2,10 +2,13 @@ package com.arellomobile.mvp;
 
 import com.arellomobile.mvp.presenter.PresenterField;
 import com.arellomobile.mvp.presenter.PresenterType;
+import com.arellomobile.mvp.viewstate.MvpViewState;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Date: 18-Dec-15
@@ -21,65 +24,207 @@ public class MvpProcessor
 	public static final String VIEW_STATE_SUFFIX = "$$State";
 	public static final String FACTORY_PARAMS_HOLDER_SUFFIX = "$$ParamsHolder";
 	public static final String PRESENTER_BINDER_INNER_SUFFIX = "Binder";
-	public static final String VIEW_STATE_CLASS_NAME_PROVIDER_SUFFIX = "$$ViewStateClassNameProvider";
+	public static final String VIEW_STATE_PROVIDER_SUFFIX = "$$ViewStateProvider";
+	public static final String MVP_REGISTRY_SIMPLE_NAME = "MvpRegistry$$Generated";
 
 	/**
-	 * Return all info about injected presenters and factories in view
+	 * Marker for classes without injected presenters. Lets cache negative lookups too
+	 */
+	private static final PresenterBinder<MvpView> NO_PRESENTER_BINDER = new PresenterBinder<MvpView>()
+	{
+		@Override
+		public List<PresenterField<? super MvpView>> getPresenterFields()
+		{
+			return Collections.emptyList();
+		}
+	};
+
+	/**
+	 * Marker for presenters without view state
+	 */
+	private static final ViewStateProvider NO_VIEW_STATE_PROVIDER = new ViewStateProvider()
+	{
+		@Override
+		public MvpViewState getViewState()
+		{
+			return null;
+		}
+	};
+
+	private final ConcurrentMap<Class<?>, PresenterBinder<?>> mPresenterBinders = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Class<?>, List<PresenterBinder<?>>> mPresenterBinderChains = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Class<?>, ViewStateProvider> mViewStateProviders = new ConcurrentHashMap<>();
+
+	/**
+	 * Return all info about injected presenters and factories in view. Result(including absence of binder)
+	 * is cached, so each class is looked up only once per process
 	 *
 	 * @param delegated   class contains presenter
 	 * @param <Delegated> type of delegated
-	 * @return PresenterBinder instance
+	 * @return PresenterBinder instance, or null if class has no injected presenters
 	 */
 	private <Delegated> PresenterBinder<? super Delegated> getPresenterBinder(Class<? super Delegated> delegated)
 	{
-		PresenterBinder<Delegated> binder;
-		try
+		PresenterBinder<?> presenterBinder = mPresenterBinders.get(delegated);
+
+		if (presenterBinder == null)
 		{
-			//noinspection unchecked
-			binder = (PresenterBinder<Delegated>) findPresenterBinderForClass(delegated);
+			presenterBinder = MvpFacade.getInstance().getMvpRegistry().createPresenterBinder(delegated);
+
+			if (presenterBinder == null)
+			{
+				presenterBinder = NO_PRESENTER_BINDER;
+			}
+
+			PresenterBinder<?> existingBinder = mPresenterBinders.putIfAbsent(delegated, presenterBinder);
+			if (existingBinder != null)
+			{
+				presenterBinder = existingBinder;
+			}
 		}
-		catch (InstantiationException e)
+
+		if (presenterBinder == NO_PRESENTER_BINDER)
 		{
-			throw new IllegalStateException("can not instantiate binder for " + delegated.getName(), e);
+			return null;
 		}
-		catch (IllegalAccessException e)
+
+		//noinspection unchecked
+		return (PresenterBinder<? super Delegated>) presenterBinder;
+	}
+
+	/**
+	 * Return binders for class and all of it superclasses. Chain is resolved once per delegated class
+	 *
+	 * @param delegatedClass class of presenters container
+	 * @param <Delegated>    type of delegated
+	 * @return ordered binders(from delegated class to top superclass), or empty list if there are no injected presenters
+	 */
+	<Delegated> List<PresenterBinder<? super Delegated>> getPresenterBinders(Class<? super Delegated> delegatedClass)
+	{
+		List<PresenterBinder<?>> presenterBinders = mPresenterBinderChains.get(delegatedClass);
+
+		if (presenterBinders == null)
 		{
-			throw new IllegalStateException("have no access to binder for " + delegated.getName(), e);
+			presenterBinders = new ArrayList<>();
+
+			Class<? super Delegated> aClass = delegatedClass;
+			while (aClass != Object.class)
+			{
+				PresenterBinder<? super Delegated> presenterBinder = getPresenterBinder(aClass);
+
+				aClass = aClass.getSuperclass();
+
+				if (presenterBinder != null)
+				{
+					presenterBinders.add(presenterBinder);
+				}
+			}
+
+			if (presenterBinders.isEmpty())
+			{
+				presenterBinders = Collections.emptyList();
+			}
+			else
+			{
+				presenterBinders = Collections.unmodifiableList(presenterBinders);
+			}
+
+			List<PresenterBinder<?>> existingBinders = mPresenterBinderChains.putIfAbsent(delegatedClass, presenterBinders);
+			if (existingBinders != null)
+			{
+				presenterBinders = existingBinders;
+			}
 		}
 
-		return binder;
+		//noinspection unchecked
+		return (List<PresenterBinder<? super Delegated>>) (List) presenterBinders;
 	}
 
 	/**
-	 * Find generated binder for class
+	 * Return generated view state provider for presenter. Result(including absence of provider) is cached
 	 *
-	 * @param clazz       class of presenter container
-	 * @param <Delegated> type of presenter container
-	 * @return PresenterBinder instance
-	 * @throws IllegalAccessException
-	 * @throws InstantiationException
+	 * @param presenterClass class of presenter
+	 * @return ViewStateProvider instance, or null if presenter has no view state
 	 */
-	private <Delegated> PresenterBinder<? super Delegated> findPresenterBinderForClass(Class<Delegated> clazz)
-			throws IllegalAccessException, InstantiationException
+	ViewStateProvider getViewStateProvider(Class<?> presenterClass)
 	{
-		PresenterBinder<? super Delegated> presenterBinder;
-		String clsName = clazz.getName();
+		ViewStateProvider viewStateProvider = mViewStateProviders.get(presenterClass);
 
-		String className = clsName + PRESENTER_BINDER_SUFFIX;
-		try
+		if (viewStateProvider == null)
 		{
-			Class<?> presenterBinderClass = Class.forName(className);
-			//noinspection unchecked
-			presenterBinder = (PresenterBinder<? super Delegated>) presenterBinderClass.newInstance();
+			viewStateProvider = MvpFacade.getInstance().getMvpRegistry().createViewStateProvider(presenterClass);
 
+			if (viewStateProvider == null)
+			{
+				viewStateProvider = NO_VIEW_STATE_PROVIDER;
+			}
+
+			ViewStateProvider existingProvider = mViewStateProviders.putIfAbsent(presenterClass, viewStateProvider);
+			if (existingProvider != null)
+			{
+				viewStateProvider = existingProvider;
+			}
 		}
-		catch (ClassNotFoundException e)
+
+		if (viewStateProvider == NO_VIEW_STATE_PROVIDER)
 		{
 			return null;
 		}
-		//TODO add to binders array
 
-		return presenterBinder;
+		return viewStateProvider;
+	}
+
+	/**
+	 * Resolves and caches everything, needed to bind presenters to container of given class or to create view state
+	 * of given presenter class: binders chain, presenter factories, params holders, view state providers and state
+	 * strategies
+	 *
+	 * @param clazz presenters container or presenter class
+	 */
+	void warmUp(Class<?> clazz)
+	{
+		for (PresenterBinder<?> presenterBinder : getPresenterBinders(clazz))
+		{
+			warmUp(presenterBinder);
+		}
+
+		if (MvpPresenter.class.isAssignableFrom(clazz))
+		{
+			warmUpViewState(getViewStateProvider(clazz));
+		}
+	}
+
+	/**
+	 * Resolves presenter factories, params holders and view states of presenters, injected by binder
+	 *
+	 * @param presenterBinder binder of presenters container
+	 */
+	private void warmUp(PresenterBinder<?> presenterBinder)
+	{
+		PresenterFactoryStore presenterFactoryStore = MvpFacade.getInstance().getPresenterFactoryStore();
+
+		for (PresenterField<?> presenterField : presenterBinder.getPresenterFields())
+		{
+			presenterFactoryStore.getPresenterFactory(presenterField.getFactory());
+			presenterFactoryStore.getParamsHolder(presenterField.getParamsHolderClass());
+
+			warmUpViewState(getViewStateProvider(presenterField.getPresenterClass()));
+		}
+	}
+
+	/**
+	 * Instantiates view state once, so its classes are loaded and initialized. Generated view state resolves its
+	 * strategies by {@link com.arellomobile.mvp.viewstate.strategy.StateStrategies} in static fields, so shared
+	 * strategies are created too
+	 *
+	 * @param viewStateProvider provider of view state, or null if presenter has no view state
+	 */
+	private void warmUpViewState(ViewStateProvider viewStateProvider)
+	{
+		if (viewStateProvider != null)
+		{
+			viewStateProvider.getViewState();
+		}
 	}
 
 	/**
@@ -90,44 +235,51 @@ public class MvpProcessor
 	 * Default factory doesn't need in special method of view to provide params. It takes param from {@link com.arellomobile.mvp.presenter.InjectPresenter} annotation fields
 	 * <p>
 	 * 2) Checks if presenter with tag is already exist in {@link com.arellomobile.mvp.PresenterStore}, and returns it.
+	 * Check and creation are atomic, so method could be called from any thread.
+	 * <p>
+	 * 3)If {@link com.arellomobile.mvp.PresenterStore} doesn't contain MvpPresenter with current tag, {@link com.arellomobile.mvp.PresenterFactory} will create it.
+	 * Only in this case default instance is created by {@link PresenterField#providePresenter()}
 	 * <p>
-	 * 3)If {@link com.arellomobile.mvp.PresenterStore} doesn't contain MvpPresenter with current tag, {@link com.arellomobile.mvp.PresenterFactory} will create it
+	 * 4) LOCAL presenter is registered in scope of delegate, GLOBAL presenter is registered in root scope of store
 	 *
 	 * @param presenterField info about presenter from {@link com.arellomobile.mvp.presenter.InjectPresenter}
 	 * @param delegated      class contains presenter
 	 * @param delegateTag    unique tag generated by {@link MvpDelegate#generateTag()}
+	 * @param scope          scope of delegate
 	 * @param <Delegated>    type of delegated
 	 * @return MvpPresenter instance
 	 */
-	private <Delegated> MvpPresenter<? super Delegated> getMvpPresenter(PresenterField<? super Delegated> presenterField, Delegated delegated, String delegateTag)
+	private <Delegated> MvpPresenter<? super Delegated> getMvpPresenter(final PresenterField<? super Delegated> presenterField, Delegated delegated, String delegateTag, PresenterScope scope)
 	{
-		Class<? extends MvpPresenter<?>> presenterClass = presenterField.getPresenterClass();
+		final Class<? extends MvpPresenter<?>> presenterClass = presenterField.getPresenterClass();
 		Class<? extends PresenterFactory<?, ?>> presenterFactoryClass = presenterField.getFactory();
 		ParamsHolder<?> holder = MvpFacade.getInstance().getPresenterFactoryStore().getParamsHolder(presenterField.getParamsHolderClass());
 		PresenterStore presenterStore = MvpFacade.getInstance().getPresenterStore();
-		PresenterFactory presenterFactory = MvpFacade.getInstance().getPresenterFactoryStore().getPresenterFactory(presenterFactoryClass);
+		final PresenterFactory presenterFactory = MvpFacade.getInstance().getPresenterFactoryStore().getPresenterFactory(presenterFactoryClass);
 
-		Object params = holder.getParams(presenterField, delegated, delegateTag);
+		final Object params = holder.getParams(presenterField, delegated, delegateTag);
 
 		//TODO throw exception
 		//noinspection unchecked
-		String tag = presenterFactory.createTag(presenterClass, params);
-		PresenterType type = presenterField.getPresenterType();
+		final String tag = presenterFactory.createTag(presenterClass, params);
+		final PresenterType type = presenterField.getPresenterType();
 
-		//noinspection unchecked
-		MvpPresenter<? super Delegated> presenter = presenterStore.get(type, tag, presenterClass);
-		if (presenter != null)
-		{
-			return presenter;
-		}
+		PresenterScope presenterScope = type == PresenterType.GLOBAL ? presenterStore.getRootScope() : scope;
 
 		//noinspection unchecked
-		presenter = presenterFactory.createPresenter(presenterField.getDefaultInstance(), presenterClass, params);
-		presenter.setPresenterType(type);
-		presenter.setTag(tag);
-		presenterStore.add(type, tag, presenter);
+		return presenterStore.getOrCreate(type, tag, presenterClass, presenterScope, new PresenterStore.PresenterCreator<MvpPresenter<? super Delegated>>()
+		{
+			@Override
+			public MvpPresenter<? super Delegated> createPresenter()
+			{
+				//noinspection unchecked
+				MvpPresenter<? super Delegated> presenter = presenterFactory.createPresenter(presenterField.providePresenter(), presenterClass, params);
+				presenter.setPresenterType(type);
+				presenter.setTag(tag);
 
-		return presenter;
+				return presenter;
+			}
+		});
 	}
 
 
@@ -138,29 +290,15 @@ public class MvpProcessor
 	 *
 	 * @param delegated   class contains presenter
 	 * @param delegateTag unique tag generated by {@link MvpDelegate#generateTag()}
+	 * @param scope       scope of delegate, which will own LOCAL presenters
 	 * @param <Delegated> type of delegated
 	 * @return presenters list for specifies presenters container
 	 */
-	<Delegated> List<MvpPresenter<? super Delegated>> getMvpPresenters(Delegated delegated, String delegateTag)
+	<Delegated> List<MvpPresenter<? super Delegated>> getMvpPresenters(Delegated delegated, String delegateTag, PresenterScope scope)
 	{
 		@SuppressWarnings("unchecked")
 		Class<? super Delegated> aClass = (Class<Delegated>) delegated.getClass();
-		List<PresenterBinder<? super Delegated>> presenterBinders = new ArrayList<>();
-
-		while (aClass != Object.class)
-		{
-			PresenterBinder<? super Delegated> presenterBinder = MvpFacade.getInstance().getMvpProcessor().getPresenterBinder(aClass);
-
-			aClass = aClass.getSuperclass();
-
-			if (presenterBinder == null)
-			{
-				continue;
-			}
-
-			presenterBinder.setTarget(delegated);
-			presenterBinders.add(presenterBinder);
-		}
+		List<PresenterBinder<? super Delegated>> presenterBinders = getPresenterBinders(aClass);
 
 		if (presenterBinders.isEmpty())
 		{
@@ -174,12 +312,12 @@ public class MvpProcessor
 
 			for (PresenterField<? super Delegated> presenterField : presenterFields)
 			{
-				MvpPresenter<? super Delegated> presenter = getMvpPresenter(presenterField, delegated, delegateTag);
+				MvpPresenter<? super Delegated> presenter = getMvpPresenter(presenterField, delegated, delegateTag, scope);
 
 				if (presenter != null)
 				{
 					presenters.add(presenter);
-					presenterField.setValue(presenter);
+					presenterField.bind(delegated, presenter);
 				}
 			}
 		}
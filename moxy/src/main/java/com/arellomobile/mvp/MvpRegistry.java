@@ -0,0 +1,109 @@
+package com.arellomobile.mvp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Date: 02.03.2016
+ * Time: 12:41
+ * <p>
+ * Lookup table of classes generated by moxy-compiler. Compiler generates registry({@link MvpProcessor#MVP_REGISTRY_SIMPLE_NAME})
+ * for each package with presenters containers or presenters, and lists generated registries at
+ * META-INF/services/com.arellomobile.mvp.MvpRegistry. Generated registries instantiate generated classes directly, so
+ * there are no {@link Class#forName(String)} calls on every {@link MvpDelegate#onCreate()}.
+ * <p>
+ * Classes, which are unknown to generated registries(e.g. classes of module, which was compiled without registry, or
+ * classes compiled by incremental build), are found by name. If there are no generated registries at all, then
+ * registry which finds generated classes by name will be used.
+ *
+ * @author Alexander Blinov
+ */
+public abstract class MvpRegistry
+{
+	private static final MvpRegistry REFLECTIVE_REGISTRY = new ReflectiveMvpRegistry();
+
+	/**
+	 * @return registries generated by compiler, combined to one, or reflection based registry if no one is generated
+	 */
+	static MvpRegistry create()
+	{
+		List<MvpRegistry> registries = new ArrayList<>();
+
+		try
+		{
+			for (MvpRegistry registry : ServiceLoader.load(MvpRegistry.class, MvpRegistry.class.getClassLoader()))
+			{
+				registries.add(registry);
+			}
+		}
+		catch (ServiceConfigurationError e)
+		{
+			throw new IllegalStateException("can not instantiate generated registry", e);
+		}
+
+		if (registries.isEmpty())
+		{
+			return REFLECTIVE_REGISTRY;
+		}
+
+		if (registries.size() == 1)
+		{
+			return registries.get(0);
+		}
+
+		return new CompositeMvpRegistry(registries);
+	}
+
+	/**
+	 * Generated registries delegate lookups of classes, which were not processed together with them, to this registry
+	 *
+	 * @return registry, which finds generated classes by name
+	 */
+	protected static MvpRegistry getReflectiveRegistry()
+	{
+		return REFLECTIVE_REGISTRY;
+	}
+
+	/**
+	 * Create generated binder for class, which contains fields annotated with
+	 * {@link com.arellomobile.mvp.presenter.InjectPresenter}
+	 *
+	 * @param presentersContainer class of presenter container. Superclasses will not be checked
+	 * @return new PresenterBinder instance, or null if class has no injected presenters
+	 */
+	public abstract PresenterBinder<?> createPresenterBinder(Class<?> presentersContainer);
+
+	/**
+	 * Create generated view state provider for presenter, annotated with {@link InjectViewState}
+	 *
+	 * @param presenterClass class of presenter. Superclasses will not be checked
+	 * @return new ViewStateProvider instance, or null if presenter has no view state
+	 */
+	public abstract ViewStateProvider createViewStateProvider(Class<?> presenterClass);
+
+	/**
+	 * Create instances of all public presenter factories, referenced by {@link com.arellomobile.mvp.presenter.InjectPresenter#factory()}
+	 *
+	 * @return new mutable map from factory class to its instance
+	 */
+	public abstract Map<Class<? extends PresenterFactory<?, ?>>, PresenterFactory<?, ?>> getPresenterFactories();
+
+	/**
+	 * Create instances of all params holders, generated for {@link ParamsProvider}
+	 *
+	 * @return new mutable map from params holder class to its instance
+	 */
+	public abstract Map<Class<? extends ParamsHolder<?>>, ParamsHolder<?>> getParamsHolders();
+
+	/**
+	 * Classes of all presenters containers, known by registry, e.g. to resolve their binders, presenter factories and
+	 * view states at background by {@link MvpProcessor}
+	 *
+	 * @return classes, which contain fields annotated with {@link com.arellomobile.mvp.presenter.InjectPresenter}
+	 */
+	public abstract Collection<Class<?>> getPresentersContainers();
+}
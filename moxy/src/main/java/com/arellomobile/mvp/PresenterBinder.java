@@ -12,12 +12,11 @@ import com.arellomobile.mvp.presenter.PresenterField;
  */
 public abstract class PresenterBinder<PresentersContainer>
 {
-	protected PresentersContainer mTarget;
-
-	public void setTarget(PresentersContainer presenterAggregator)
-	{
-		mTarget = presenterAggregator;
-	}
-
+	/**
+	 * Binder has no state, so one instance is shared by all containers of same class.
+	 * Presenters are injected via {@link PresenterField#bind(Object, MvpPresenter)}
+	 *
+	 * @return immutable list of fields annotated with {@link com.arellomobile.mvp.presenter.InjectPresenter}
+	 */
 	public abstract List<PresenterField<? super PresentersContainer>> getPresenterFields();
 }
@@ -15,7 +15,8 @@ package com.arellomobile.mvp;
 public interface PresenterFactory<Presenter extends MvpPresenter<?>, Params>
 {
 	/**
-	 * This method creates presenter Instance.
+	 * This method creates presenter Instance. It is called only if presenter with tag from {@link #createTag(Class, Object)}
+	 * was not found at {@link PresenterStore}.
 	 *
 	 * @param defaultInstance instance created by empty constructor, or null if empty constructor not exists
 	 * @param presenterClazz expected clazz of presenter
@@ -1,29 +1,40 @@
 package com.arellomobile.mvp;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Date: 23-Dec-15
  * Time: 19:37
+ * <p>
+ * Store is filled by instances from {@link MvpRegistry} at start, so usually there is only one map lookup per request.
+ * Classes unknown for registry are instantiated by reflection and cached
  *
  * @author Alexander Blinov
  */
 public class PresenterFactoryStore
 {
-	private static Map<Class<? extends PresenterFactory<?, ?>>, PresenterFactory<?, ?>> sPresenterFactories = new HashMap<>();
-	private static Map<Class<? extends ParamsHolder<?>>, ParamsHolder<?>> sParamsHolders = new HashMap<>();
+	private final ConcurrentMap<Class<? extends PresenterFactory<?, ?>>, PresenterFactory<?, ?>> mPresenterFactories;
+	private final ConcurrentMap<Class<? extends ParamsHolder<?>>, ParamsHolder<?>> mParamsHolders;
+
+	public PresenterFactoryStore(MvpRegistry mvpRegistry)
+	{
+		mPresenterFactories = new ConcurrentHashMap<>(mvpRegistry.getPresenterFactories());
+		mPresenterFactories.put(DefaultPresenterFactory.class, new DefaultPresenterFactory());
+
+		mParamsHolders = new ConcurrentHashMap<>(mvpRegistry.getParamsHolders());
+		mParamsHolders.put(DefaultParamsHolder.class, new DefaultParamsHolder());
+	}
 
 	public PresenterFactory<?, ?> getPresenterFactory(Class<? extends PresenterFactory<?, ?>> clazz)
 	{
-		if (sPresenterFactories.containsKey(clazz))
+		PresenterFactory<?, ?> instance = mPresenterFactories.get(clazz);
+
+		if (instance != null)
 		{
-			//noinspection unchecked
-			return sPresenterFactories.get(clazz);
+			return instance;
 		}
 
-		PresenterFactory<?, ?> instance;
-
 		try
 		{
 			instance = clazz.newInstance();
@@ -36,20 +47,20 @@ public class PresenterFactoryStore
 					"has an empty constructor that is public", e);
 		}
 
-		sPresenterFactories.put(clazz, instance);
+		PresenterFactory<?, ?> existingInstance = mPresenterFactories.putIfAbsent(clazz, instance);
 
-		return instance;
+		return existingInstance != null ? existingInstance : instance;
 	}
 
 	public ParamsHolder<?> getParamsHolder(Class<? extends ParamsHolder<?>> clazz)
 	{
-		if (sParamsHolders.containsKey(clazz))
+		ParamsHolder<?> instance = mParamsHolders.get(clazz);
+
+		if (instance != null)
 		{
-			return sParamsHolders.get(clazz);
+			return instance;
 		}
 
-		ParamsHolder<?> instance;
-
 		try
 		{
 			instance = clazz.newInstance();
@@ -62,8 +73,8 @@ public class PresenterFactoryStore
 					"has an empty constructor that is public", e);
 		}
 
-		sParamsHolders.put(clazz, instance);
+		ParamsHolder<?> existingInstance = mParamsHolders.putIfAbsent(clazz, instance);
 
-		return instance;
+		return existingInstance != null ? existingInstance : instance;
 	}
 }
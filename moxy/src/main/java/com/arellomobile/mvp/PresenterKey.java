@@ -0,0 +1,76 @@
+package com.arellomobile.mvp;
+
+import com.arellomobile.mvp.presenter.PresenterType;
+
+/**
+ * Date: 04.03.2016
+ * Time: 17:40
+ * <p>
+ * Composite key of presenter at {@link PresenterStore}. Hash code is calculated once, at creation
+ *
+ * @author Alexander Blinov
+ */
+final class PresenterKey
+{
+	private final PresenterType mType;
+	private final Class<?> mClazz;
+	private final String mTag;
+	private final int mHashCode;
+
+	PresenterKey(PresenterType type, Class<?> clazz, String tag)
+	{
+		mType = type;
+		mClazz = clazz;
+		mTag = tag;
+
+		int hashCode = type.ordinal();
+		hashCode = 31 * hashCode + clazz.hashCode();
+		hashCode = 31 * hashCode + tag.hashCode();
+		mHashCode = hashCode;
+	}
+
+	PresenterType getType()
+	{
+		return mType;
+	}
+
+	Class<?> getClazz()
+	{
+		return mClazz;
+	}
+
+	String getTag()
+	{
+		return mTag;
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if (this == o)
+		{
+			return true;
+		}
+
+		if (!(o instanceof PresenterKey))
+		{
+			return false;
+		}
+
+		PresenterKey that = (PresenterKey) o;
+
+		return mHashCode == that.mHashCode && mType == that.mType && mClazz == that.mClazz && mTag.equals(that.mTag);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return mHashCode;
+	}
+
+	@Override
+	public String toString()
+	{
+		return mType + ":" + mClazz.getName() + ":" + mTag;
+	}
+}
@@ -0,0 +1,219 @@
+package com.arellomobile.mvp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Date: 14.03.2016
+ * Time: 15:47
+ * <p>
+ * Node of presenters lifetime tree(e.g. application - flow - screen - child screen). Every LOCAL and GLOBAL presenter is
+ * registered in scope: LOCAL presenters in scope of {@link MvpDelegate}, GLOBAL presenters in
+ * {@link PresenterStore#getRootScope() root scope}. WEAK and SOFT presenters are not registered, because their lifetime
+ * is controlled by garbage collector.
+ * <p>
+ * {@link #close()} destroys presenters of scope and of all its child scopes in one pass. Presenter belongs to scope,
+ * where it was registered last, so presenter, which was restored by new delegate, will not be destroyed with scope of
+ * previous one. Presenter, which is removed from store, is unregistered from its scope, so scope never retains
+ * evicted presenters.
+ *
+ * @author Alexander Blinov
+ */
+public final class PresenterScope
+{
+	private final PresenterStore mPresenterStore;
+	private final PresenterScope mParent;
+	private final Object mLock;
+	private final List<PresenterScope> mChildren = new ArrayList<>();
+	// in order of registration
+	private final LinkedHashMap<PresenterKey, MvpPresenter<?>> mPresenters = new LinkedHashMap<>();
+	private boolean mClosed;
+
+	PresenterScope(PresenterStore presenterStore, PresenterScope parent)
+	{
+		mPresenterStore = presenterStore;
+		mParent = parent;
+		// whole tree is guarded by one lock, so structure of tree could not change while it is closing
+		mLock = parent != null ? parent.mLock : new Object();
+	}
+
+	/**
+	 * @return new child scope, which will be closed with this scope
+	 * @throws IllegalStateException if this scope is already closed
+	 */
+	public PresenterScope openChild()
+	{
+		synchronized (mLock)
+		{
+			if (mClosed)
+			{
+				throw new IllegalStateException("scope is already closed");
+			}
+
+			PresenterScope child = new PresenterScope(mPresenterStore, this);
+			mChildren.add(child);
+
+			return child;
+		}
+	}
+
+	/**
+	 * @return parent scope, or null for root scope
+	 */
+	public PresenterScope getParent()
+	{
+		return mParent;
+	}
+
+	PresenterStore getPresenterStore()
+	{
+		return mPresenterStore;
+	}
+
+	public boolean isClosed()
+	{
+		synchronized (mLock)
+		{
+			return mClosed;
+		}
+	}
+
+	/**
+	 * Closes this scope and all child scopes. Presenters, which still belong to closed scopes, are removed from
+	 * {@link PresenterStore} and destroyed, starting from deepest scopes
+	 */
+	public void close()
+	{
+		List<PresenterScope> scopes = new ArrayList<>();
+
+		synchronized (mLock)
+		{
+			if (mClosed)
+			{
+				return;
+			}
+
+			detachFromParent();
+
+			// reverse breadth first order: children are destroyed before parents
+			scopes.add(this);
+			for (int i = 0; i < scopes.size(); i++)
+			{
+				PresenterScope scope = scopes.get(i);
+				scope.mClosed = true;
+				scopes.addAll(scope.mChildren);
+				scope.mChildren.clear();
+			}
+		}
+
+		for (int i = scopes.size() - 1; i >= 0; i--)
+		{
+			scopes.get(i).destroyPresenters();
+		}
+	}
+
+	/**
+	 * Detaches scope from parent without destroying presenters. Presenters stay in store, and they could be
+	 * registered in another scope later(e.g. when delegate is recreated after saving state)
+	 */
+	void release()
+	{
+		synchronized (mLock)
+		{
+			detachFromParent();
+		}
+	}
+
+	/**
+	 * Makes this scope owner of presenter
+	 */
+	void register(PresenterKey key, MvpPresenter<?> presenter)
+	{
+		synchronized (mLock)
+		{
+			if (mClosed)
+			{
+				throw new IllegalStateException("scope is already closed");
+			}
+
+			if (presenter.getPresenterScope() == this)
+			{
+				return;
+			}
+
+			PresenterScope previousScope = presenter.getPresenterScope();
+			if (previousScope != null)
+			{
+				previousScope.mPresenters.remove(key);
+			}
+
+			presenter.setPresenterScope(this);
+			mPresenters.put(key, presenter);
+		}
+	}
+
+	/**
+	 * Removes presenter from scope, which owns it. Called by {@link PresenterStore} when presenter is removed from it
+	 */
+	void unregister(PresenterKey key, MvpPresenter<?> presenter)
+	{
+		synchronized (mLock)
+		{
+			PresenterScope scope = presenter.getPresenterScope();
+			if (scope == null)
+			{
+				return;
+			}
+
+			if (scope.mPresenters.get(key) == presenter)
+			{
+				scope.mPresenters.remove(key);
+			}
+
+			presenter.setPresenterScope(null);
+		}
+	}
+
+	private void detachFromParent()
+	{
+		if (mParent != null)
+		{
+			mParent.mChildren.remove(this);
+		}
+	}
+
+	private void destroyPresenters()
+	{
+		List<Map.Entry<PresenterKey, MvpPresenter<?>>> presenters;
+
+		synchronized (mLock)
+		{
+			presenters = new ArrayList<>(mPresenters.entrySet());
+		}
+
+		for (int i = presenters.size() - 1; i >= 0; i--)
+		{
+			PresenterKey key = presenters.get(i).getKey();
+			MvpPresenter<?> presenter = presenters.get(i).getValue();
+
+			synchronized (mLock)
+			{
+				// presenter was moved to another scope or removed from store
+				if (presenter.getPresenterScope() != this)
+				{
+					continue;
+				}
+
+				presenter.setPresenterScope(null);
+				mPresenters.remove(key);
+			}
+
+			if (mPresenterStore.removeIfSame(key, presenter))
+			{
+				presenter.onDestroy();
+			}
+		}
+	}
+}
@@ -1,20 +1,70 @@
 package com.arellomobile.mvp;
 
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.arellomobile.mvp.presenter.PresenterType;
 
 /**
  * Date: 17-Dec-15
  * Time: 16:05
+ * <p>
+ * Store is thread safe. Lookups of LOCAL, GLOBAL and WEAK presenters are lock free, while creation of presenter is
+ * guarded by one of {@link #STRIPES_COUNT} locks, chosen by key of presenter. So same presenter is never created twice,
+ * and creation of different presenters rarely waits each other.
+ * <p>
+ * Presenters are indexed by single {@link PresenterKey}(type, class and tag), so each operation costs one hash lookup.
+ * <p>
+ * Count of GLOBAL presenters could be limited by {@link #setGlobalCapacityPolicy(CapacityPolicy)}.
+ * WEAK and GLOBAL presenters without views could be expired by {@link #setIdleTimeout(long)}.
+ * SOFT presenters are held by soft references, and could be dropped by {@link #trimSoftPresenters(float)} on low memory.
+ * <p>
+ * LOCAL and GLOBAL presenters could be registered in {@link PresenterScope}, to be destroyed together with it.
  *
  * @author Alexander Blinov
  */
 public class PresenterStore
 {
-	private Map<Class<? extends MvpPresenter>, Map<String, MvpPresenter>> mGlobalPresenters = new HashMap<>();
-	private Map<Class<? extends MvpPresenter>, Map<String, MvpPresenter>> mWeakPresenters = new WeakValueHashMap<>();
+	private static final int STRIPES_COUNT = 16;
+	private static final int SWEEP_STEP = 4;
+	private static final long NOT_IDLE = -1;
+	private static final long EVICTING = -2;
+
+	private final ConcurrentMap<PresenterKey, MvpPresenter<?>> mPresenters = new ConcurrentHashMap<>();
+	private final Map<PresenterKey, MvpPresenter<?>> mWeakPresenters = new ConcurrentWeakValueHashMap<>();
+	private final SoftValueLruMap<PresenterKey, MvpPresenter<?>> mSoftPresenters = new SoftValueLruMap<>();
+	private final Object[] mLocks;
+
+	private final Object mLruLock = new Object();
+	// access ordered weights of GLOBAL presenters. Used only if capacity policy is set
+	private final LinkedHashMap<PresenterKey, Long> mGlobalLru = new LinkedHashMap<>(16, 0.75f, true);
+	private volatile CapacityPolicy mCapacityPolicy;
+	private long mGlobalWeight;
+
+	// moments, since which WEAK and GLOBAL presenters have no views. Used only if idle timeout is set
+	private final ConcurrentMap<PresenterKey, Long> mIdleSince = new ConcurrentHashMap<>();
+	private final AtomicBoolean mSweeping = new AtomicBoolean();
+	private Iterator<Map.Entry<PresenterKey, Long>> mSweepIterator;
+	private volatile long mIdleTimeout;
+	private volatile Clock mClock = Clock.SYSTEM;
+
+	private final PresenterScope mRootScope = new PresenterScope(this, null);
+
+	public PresenterStore()
+	{
+		mLocks = new Object[STRIPES_COUNT];
+		for (int i = 0; i < STRIPES_COUNT; i++)
+		{
+			mLocks[i] = new Object();
+		}
+	}
 
 	/**
 	 *
@@ -25,73 +75,648 @@ public class PresenterStore
 	 */
 	public <T extends MvpPresenter> void add(PresenterType type, String tag, T instance)
 	{
-		Map<String, MvpPresenter> mvpPresenterMap;
+		PresenterKey key = new PresenterKey(type, instance.getClass(), tag);
+		Map<PresenterKey, MvpPresenter<?>> presenters = getPresenters(type);
+
+		synchronized (getLock(key))
+		{
+			if (presenters.get(key) != null)
+			{
+				throw new IllegalStateException("mvp multiple presenters map already contains tag");
+			}
+
+			presenters.put(key, instance);
+			onPresenterAdded(key, instance);
+		}
+
+		trimGlobalPresenters(key);
+		sweepIdlePresenters(SWEEP_STEP);
+	}
 
-		final Map<Class<? extends MvpPresenter>, Map<String, MvpPresenter>> presenters = getPresenters(type);
+	public MvpPresenter get(PresenterType type, String tag, Class<? extends MvpPresenter> clazz)
+	{
+		PresenterKey key = new PresenterKey(type, clazz, tag);
+		MvpPresenter<?> presenter = getPresenters(type).get(key);
 
-		if (presenters.containsKey(instance.getClass()))
+		if (presenter != null && !onPresenterUsed(key, presenter))
 		{
-			mvpPresenterMap = presenters.get(instance.getClass());
+			// presenter is evicted right now
+			presenter = null;
 		}
-		else
+
+		sweepIdlePresenters(SWEEP_STEP);
+
+		return presenter;
+	}
+
+	/**
+	 * Returns presenter with given type, tag and class. If there is no such presenter, it will be created by creator and
+	 * added to store. Creator is called at most once per presenter, even if presenter is requested by several threads
+	 * simultaneously.
+	 * <p>
+	 * Creator is called under lock, so it should not wait for other threads, which request presenters
+	 *
+	 * @param type    Type is presenter local, global or weak
+	 * @param tag     Object to store presenter
+	 * @param clazz   Class of presenter
+	 * @param creator Creates presenter, if there is no presenter in store
+	 * @param <T>     type of presenter
+	 * @return presenter from store, or just created presenter
+	 */
+	public <T extends MvpPresenter<?>> T getOrCreate(PresenterType type, String tag, Class<? extends MvpPresenter> clazz, PresenterCreator<T> creator)
+	{
+		return getOrCreate(type, tag, clazz, null, creator);
+	}
+
+	/**
+	 * Same as {@link #getOrCreate(PresenterType, String, Class, PresenterCreator)}, but also makes scope owner of
+	 * returned presenter. So presenter will be destroyed when scope is closed
+	 *
+	 * @param scope scope of this store, or null to not register presenter. Ignored for WEAK and SOFT presenters
+	 */
+	public <T extends MvpPresenter<?>> T getOrCreate(PresenterType type, String tag, Class<? extends MvpPresenter> clazz, PresenterScope scope, PresenterCreator<T> creator)
+	{
+		if (scope != null && scope.getPresenterStore() != this)
 		{
-			mvpPresenterMap = createPresentersStore(type);
-			presenters.put(instance.getClass(), mvpPresenterMap);
+			throw new IllegalArgumentException("scope belongs to another presenter store");
 		}
 
-		if (mvpPresenterMap.containsKey(tag))
+		T presenter = getOrCreatePresenter(type, tag, clazz, creator);
+
+		if (scope != null && (type == PresenterType.LOCAL || type == PresenterType.GLOBAL))
 		{
-			throw new IllegalStateException("mvp multiple presenters map already contains tag");
+			scope.register(new PresenterKey(type, clazz, tag), presenter);
 		}
 
-		mvpPresenterMap.put(tag, instance);
+		return presenter;
 	}
 
-	public MvpPresenter get(PresenterType type, String tag, Class<? extends MvpPresenter> clazz)
+	private <T extends MvpPresenter<?>> T getOrCreatePresenter(PresenterType type, String tag, Class<?> clazz, PresenterCreator<T> creator)
 	{
-		Map<String, MvpPresenter> tagMvpPresenterMap = getPresenters(type).get(clazz);
+		PresenterKey key = new PresenterKey(type, clazz, tag);
+		Map<PresenterKey, MvpPresenter<?>> presenters = getPresenters(type);
+
+		sweepIdlePresenters(SWEEP_STEP);
 
-		if (tagMvpPresenterMap == null)
+		//noinspection unchecked
+		T presenter = (T) presenters.get(key);
+		if (presenter != null && onPresenterUsed(key, presenter))
 		{
-			//TODO add builder
-			return null;
+			return presenter;
 		}
 
-		//TODO add builder if tagMvpPresenterMap.getPresenterFactory(tag) == null
+		synchronized (getLock(key))
+		{
+			//noinspection unchecked
+			presenter = (T) presenters.get(key);
+			if (presenter != null && onPresenterUsed(key, presenter))
+			{
+				return presenter;
+			}
 
-		return tagMvpPresenterMap.get(tag);
-	}
+			presenter = creator.createPresenter();
+
+			presenters.put(key, presenter);
+			onPresenterAdded(key, presenter);
+		}
 
+		trimGlobalPresenters(key);
+
+		return presenter;
+	}
 
 	public MvpPresenter remove(PresenterType type, String tag, Class<? extends MvpPresenter> clazz)
 	{
-		Map<String, MvpPresenter> tagMvpPresenterMap = getPresenters(type).get(clazz);
+		PresenterKey key = new PresenterKey(type, clazz, tag);
 
-		if (tagMvpPresenterMap == null)
+		synchronized (getLock(key))
 		{
-			return null;
+			MvpPresenter<?> presenter = getPresenters(type).remove(key);
+
+			if (presenter != null)
+			{
+				onPresenterRemoved(key, presenter);
+			}
+
+			return presenter;
 		}
+	}
 
-		return tagMvpPresenterMap.remove(tag);
+	/**
+	 * Root of scopes tree(application scope). It is never closed by library
+	 *
+	 * @return root scope of this store
+	 */
+	public PresenterScope getRootScope()
+	{
+		return mRootScope;
 	}
 
-	private Map<Class<? extends MvpPresenter>, Map<String, MvpPresenter>> getPresenters(PresenterType type)
+	/**
+	 * Limits GLOBAL presenters, retained by store. If there are more presenters than policy allows, least recently used
+	 * presenters without attached views are removed and destroyed immediately.
+	 * <p>
+	 * Note: evicted presenter is destroyed even if some detached view(e.g. stopped activity) still holds it. Such view
+	 * will receive new presenter only after recreation
+	 *
+	 * @param capacityPolicy policy, or null to retain all GLOBAL presenters
+	 */
+	public void setGlobalCapacityPolicy(CapacityPolicy capacityPolicy)
 	{
-		if (type == PresenterType.WEAK)
+		synchronized (mLruLock)
 		{
-			return mWeakPresenters;
+			mCapacityPolicy = capacityPolicy;
+			mGlobalLru.clear();
+			mGlobalWeight = 0;
+
+			if (capacityPolicy == null)
+			{
+				return;
+			}
+
+			for (Map.Entry<PresenterKey, MvpPresenter<?>> entry : mPresenters.entrySet())
+			{
+				if (entry.getKey().getType() == PresenterType.GLOBAL)
+				{
+					long weight = capacityPolicy.weightOf(entry.getValue());
+					mGlobalLru.put(entry.getKey(), weight);
+					mGlobalWeight += weight;
+				}
+			}
 		}
 
-		return mGlobalPresenters;
+		trimGlobalPresenters(null);
 	}
 
-	private Map<String, MvpPresenter> createPresentersStore(PresenterType type)
+	/**
+	 * WEAK and GLOBAL presenters, which have no attached views for given time, will be removed from store and destroyed.
+	 * Request of presenter from store restarts its idle time.
+	 * Store has no own timer: few presenters are checked on every request to store(so cost of checks is spread between
+	 * requests), and all presenters are checked by {@link #sweepIdlePresenters()}.
+	 *
+	 * @param idleTimeoutMillis time in milliseconds of {@link #setClock(Clock) clock}, or 0 to never expire presenters
+	 */
+	public void setIdleTimeout(long idleTimeoutMillis)
+	{
+		if (idleTimeoutMillis < 0)
+		{
+			throw new IllegalArgumentException("idle timeout should not be negative: " + idleTimeoutMillis);
+		}
+
+		mIdleTimeout = idleTimeoutMillis;
+
+		if (idleTimeoutMillis == 0)
+		{
+			mIdleSince.clear();
+			return;
+		}
+
+		long now = mClock.uptimeMillis();
+		for (PresenterKey key : mPresenters.keySet())
+		{
+			if (key.getType() == PresenterType.GLOBAL && !mIdleSince.containsKey(key))
+			{
+				mIdleSince.put(key, now);
+			}
+		}
+
+		for (PresenterKey key : mWeakPresenters.keySet())
+		{
+			if (!mIdleSince.containsKey(key))
+			{
+				mIdleSince.put(key, now);
+			}
+		}
+	}
+
+	/**
+	 * @param clock clock for {@link #setIdleTimeout(long) idle timeout}. {@link Clock#SYSTEM} by default
+	 */
+	public void setClock(Clock clock)
+	{
+		if (clock == null)
+		{
+			throw new IllegalArgumentException("clock should not be null");
+		}
+
+		mClock = clock;
+	}
+
+	/**
+	 * Checks all WEAK and GLOBAL presenters, and destroys ones, which have no attached views longer than idle timeout.
+	 * Does nothing if idle timeout is not set
+	 */
+	public void sweepIdlePresenters()
+	{
+		sweepIdlePresenters(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Checks next presenters from sweep cursor. Only one thread sweeps at time, other threads skip sweep
+	 *
+	 * @param maxCount max count of presenters to check
+	 */
+	private void sweepIdlePresenters(int maxCount)
+	{
+		long idleTimeout = mIdleTimeout;
+		if (idleTimeout == 0 || mIdleSince.isEmpty() || !mSweeping.compareAndSet(false, true))
+		{
+			return;
+		}
+
+		try
+		{
+			long now = mClock.uptimeMillis();
+
+			if (mSweepIterator == null || maxCount == Integer.MAX_VALUE)
+			{
+				mSweepIterator = mIdleSince.entrySet().iterator();
+			}
+
+			for (int i = 0; i < maxCount; i++)
+			{
+				if (!mSweepIterator.hasNext())
+				{
+					// start next round from beginning
+					mSweepIterator = mIdleSince.entrySet().iterator();
+					if (maxCount == Integer.MAX_VALUE || !mSweepIterator.hasNext())
+					{
+						break;
+					}
+				}
+
+				Map.Entry<PresenterKey, Long> entry = mSweepIterator.next();
+				PresenterKey key = entry.getKey();
+				MvpPresenter<?> presenter = getPresenters(key.getType()).get(key);
+
+				if (presenter == null)
+				{
+					// presenter was removed or garbage collected
+					mIdleSince.remove(key, entry.getValue());
+					continue;
+				}
+
+				long idleSince = entry.getValue();
+
+				if (!presenter.getAttachedViews().isEmpty())
+				{
+					if (idleSince != NOT_IDLE)
+					{
+						mIdleSince.replace(key, idleSince, NOT_IDLE);
+					}
+					continue;
+				}
+
+				if (idleSince == NOT_IDLE)
+				{
+					// views were detached after previous check
+					mIdleSince.replace(key, NOT_IDLE, now);
+				}
+				else if (now - idleSince >= idleTimeout && removeIfIdle(key, presenter, idleSince))
+				{
+					presenter.onDestroy();
+				}
+			}
+		}
+		finally
+		{
+			mSweeping.set(false);
+		}
+	}
+
+	/**
+	 * Drops part of SOFT presenters without attached views, from least recently used. Dropped presenters are removed
+	 * from store and destroyed. Should be called when system asks app to reduce memory usage
+	 *
+	 * @param fraction part of SOFT presenters to drop, from 0 to 1
+	 */
+	public void trimSoftPresenters(float fraction)
+	{
+		if (fraction <= 0)
+		{
+			return;
+		}
+
+		List<PresenterKey> keys = mSoftPresenters.getKeysInAccessOrder();
+		int count = fraction >= 1 ? keys.size() : (int) Math.ceil(keys.size() * fraction);
+
+		for (PresenterKey key : keys)
+		{
+			if (count == 0)
+			{
+				break;
+			}
+
+			MvpPresenter<?> presenter = mSoftPresenters.peek(key);
+			if (presenter == null || !presenter.getAttachedViews().isEmpty())
+			{
+				continue;
+			}
+
+			if (removeIfDetached(key, presenter))
+			{
+				presenter.onDestroy();
+				count--;
+			}
+		}
+	}
+
+	/**
+	 * Marks presenter as not idle, so it will not be expired until views are detached from it and idle timeout passes
+	 * again
+	 *
+	 * @return false if presenter is evicted by concurrent sweep, and should be treated as missing
+	 */
+	private boolean onPresenterUsed(PresenterKey key, MvpPresenter<?> presenter)
+	{
+		if (mIdleTimeout != 0 && (key.getType() == PresenterType.WEAK || key.getType() == PresenterType.GLOBAL))
+		{
+			while (true)
+			{
+				Long idleSince = mIdleSince.get(key);
+
+				if (idleSince == null)
+				{
+					// presenter was just added, or is already removed
+					if (getPresenters(key.getType()).get(key) != presenter)
+					{
+						return false;
+					}
+					break;
+				}
+
+				if (idleSince == EVICTING)
+				{
+					return false;
+				}
+
+				if (idleSince == NOT_IDLE || mIdleSince.replace(key, idleSince, NOT_IDLE))
+				{
+					break;
+				}
+			}
+		}
+
+		if (mCapacityPolicy == null || key.getType() != PresenterType.GLOBAL)
+		{
+			return true;
+		}
+
+		synchronized (mLruLock)
+		{
+			// access ordered map moves entry to tail
+			mGlobalLru.get(key);
+		}
+
+		return true;
+	}
+
+	private void onPresenterAdded(PresenterKey key, MvpPresenter<?> presenter)
+	{
+		if (mIdleTimeout != 0 && (key.getType() == PresenterType.WEAK || key.getType() == PresenterType.GLOBAL))
+		{
+			// presenter has no views yet
+			mIdleSince.put(key, mClock.uptimeMillis());
+		}
+
+		CapacityPolicy capacityPolicy = mCapacityPolicy;
+		if (capacityPolicy == null || key.getType() != PresenterType.GLOBAL)
+		{
+			return;
+		}
+
+		long weight = capacityPolicy.weightOf(presenter);
+
+		synchronized (mLruLock)
+		{
+			Long oldWeight = mGlobalLru.put(key, weight);
+			mGlobalWeight += weight - (oldWeight != null ? oldWeight : 0);
+		}
+	}
+
+	private void onPresenterRemoved(PresenterKey key, MvpPresenter<?> presenter)
+	{
+		mIdleSince.remove(key);
+
+		if (key.getType() == PresenterType.LOCAL || key.getType() == PresenterType.GLOBAL)
+		{
+			mRootScope.unregister(key, presenter);
+		}
+
+		if (mCapacityPolicy == null || key.getType() != PresenterType.GLOBAL)
+		{
+			return;
+		}
+
+		synchronized (mLruLock)
+		{
+			Long weight = mGlobalLru.remove(key);
+			if (weight != null)
+			{
+				mGlobalWeight -= weight;
+			}
+		}
+	}
+
+	/**
+	 * Evicts least recently used GLOBAL presenters without attached views, until total weight fits policy
+	 *
+	 * @param addedKey key of just added presenter. It will not be evicted, because it has no views yet
+	 */
+	private void trimGlobalPresenters(PresenterKey addedKey)
+	{
+		// presenters, which got views or were removed after they were picked
+		Set<PresenterKey> failedKeys = null;
+
+		while (true)
+		{
+			Map<PresenterKey, MvpPresenter<?>> candidates = new LinkedHashMap<>();
+
+			synchronized (mLruLock)
+			{
+				CapacityPolicy capacityPolicy = mCapacityPolicy;
+				if (capacityPolicy == null)
+				{
+					return;
+				}
+
+				long excess = mGlobalWeight - capacityPolicy.getCapacity();
+
+				Iterator<Map.Entry<PresenterKey, Long>> iterator = mGlobalLru.entrySet().iterator();
+				while (excess > 0 && iterator.hasNext())
+				{
+					Map.Entry<PresenterKey, Long> entry = iterator.next();
+					PresenterKey key = entry.getKey();
+
+					if (key.equals(addedKey) || (failedKeys != null && failedKeys.contains(key)))
+					{
+						continue;
+					}
+
+					MvpPresenter<?> presenter = mPresenters.get(key);
+					if (presenter == null)
+					{
+						// presenter was removed concurrently
+						iterator.remove();
+						mGlobalWeight -= entry.getValue();
+						excess -= entry.getValue();
+						continue;
+					}
+
+					if (!presenter.getAttachedViews().isEmpty())
+					{
+						continue;
+					}
+
+					// entry is removed with presenter, if presenter still has no views
+					excess -= entry.getValue();
+					candidates.put(key, presenter);
+				}
+			}
+
+			if (candidates.isEmpty())
+			{
+				return;
+			}
+
+			boolean allRemoved = true;
+			for (Map.Entry<PresenterKey, MvpPresenter<?>> candidate : candidates.entrySet())
+			{
+				if (removeIfDetached(candidate.getKey(), candidate.getValue()))
+				{
+					candidate.getValue().onDestroy();
+				}
+				else
+				{
+					if (failedKeys == null)
+					{
+						failedKeys = new HashSet<>();
+					}
+					failedKeys.add(candidate.getKey());
+					allRemoved = false;
+				}
+			}
+
+			// weight of failed candidates is still in store, so excess is recalculated without them
+			if (allRemoved)
+			{
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Removes presenter, if it has no attached views. Views could not be attached to presenter between check and removal
+	 *
+	 * @return true if presenter was removed
+	 */
+	private boolean removeIfDetached(PresenterKey key, MvpPresenter<?> presenter)
+	{
+		if (!presenter.tryLockDetached())
+		{
+			return false;
+		}
+
+		try
+		{
+			return removeIfSame(key, presenter);
+		}
+		finally
+		{
+			presenter.unlockViews();
+		}
+	}
+
+	/**
+	 * Removes presenter, if it has no attached views and was not used since it became idle. Concurrent
+	 * {@link #onPresenterUsed} either marks presenter as not idle before, or sees it as evicting
+	 *
+	 * @return true if presenter was removed
+	 */
+	private boolean removeIfIdle(PresenterKey key, MvpPresenter<?> presenter, long idleSince)
+	{
+		if (!presenter.tryLockDetached())
+		{
+			return false;
+		}
+
+		try
+		{
+			synchronized (getLock(key))
+			{
+				if (!mIdleSince.replace(key, idleSince, EVICTING))
+				{
+					return false;
+				}
+
+				if (removeIfSame(key, presenter))
+				{
+					return true;
+				}
+
+				mIdleSince.replace(key, EVICTING, idleSince);
+				return false;
+			}
+		}
+		finally
+		{
+			presenter.unlockViews();
+		}
+	}
+
+	/**
+	 * Removes presenter, if store still contains exactly this instance for key
+	 *
+	 * @return true if presenter was removed
+	 */
+	boolean removeIfSame(PresenterKey key, MvpPresenter<?> presenter)
+	{
+		Map<PresenterKey, MvpPresenter<?>> presenters = getPresenters(key.getType());
+
+		synchronized (getLock(key))
+		{
+			if (presenters.get(key) != presenter)
+			{
+				return false;
+			}
+
+			presenters.remove(key);
+			onPresenterRemoved(key, presenter);
+		}
+
+		return true;
+	}
+
+	private Object getLock(PresenterKey key)
+	{
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+
+		return mLocks[hash & (STRIPES_COUNT - 1)];
+	}
+
+	private Map<PresenterKey, MvpPresenter<?>> getPresenters(PresenterType type)
 	{
 		if (type == PresenterType.WEAK)
 		{
-			return new WeakValueHashMap<>();
+			return mWeakPresenters;
+		}
+
+		if (type == PresenterType.SOFT)
+		{
+			return mSoftPresenters;
 		}
 
-		return new HashMap<>();
+		return mPresenters;
+	}
+
+	/**
+	 * Creates presenter for {@link #getOrCreate(PresenterType, String, Class, PresenterCreator)}
+	 *
+	 * @param <T> type of presenter
+	 */
+	public interface PresenterCreator<T extends MvpPresenter<?>>
+	{
+		T createPresenter();
 	}
-}
\ No newline at end of file
+}
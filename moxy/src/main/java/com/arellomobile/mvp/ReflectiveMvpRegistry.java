@@ -0,0 +1,84 @@
+package com.arellomobile.mvp;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Date: 02.03.2016
+ * Time: 12:58
+ * <p>
+ * Fallback registry, used when compiler did not generate registries, and for classes, which are unknown to generated
+ * registries. Finds generated classes by their names.
+ *
+ * @author Alexander Blinov
+ */
+final class ReflectiveMvpRegistry extends MvpRegistry
+{
+	@Override
+	public PresenterBinder<?> createPresenterBinder(Class<?> presentersContainer)
+	{
+		String className = presentersContainer.getName() + MvpProcessor.PRESENTER_BINDER_SUFFIX;
+
+		//noinspection TryWithIdenticalCatches
+		try
+		{
+			return (PresenterBinder<?>) Class.forName(className).newInstance();
+		}
+		catch (ClassNotFoundException e)
+		{
+			return null;
+		}
+		catch (InstantiationException e)
+		{
+			throw new IllegalStateException("can not instantiate binder for " + presentersContainer.getName(), e);
+		}
+		catch (IllegalAccessException e)
+		{
+			throw new IllegalStateException("have no access to binder for " + presentersContainer.getName(), e);
+		}
+	}
+
+	@Override
+	public ViewStateProvider createViewStateProvider(Class<?> presenterClass)
+	{
+		String className = presenterClass.getName() + MvpProcessor.VIEW_STATE_PROVIDER_SUFFIX;
+
+		//noinspection TryWithIdenticalCatches
+		try
+		{
+			return (ViewStateProvider) Class.forName(className).newInstance();
+		}
+		catch (ClassNotFoundException e)
+		{
+			return null;
+		}
+		catch (InstantiationException e)
+		{
+			throw new IllegalStateException("can not instantiate view state provider for " + presenterClass.getName(), e);
+		}
+		catch (IllegalAccessException e)
+		{
+			throw new IllegalStateException("have no access to view state provider for " + presenterClass.getName(), e);
+		}
+	}
+
+	@Override
+	public Map<Class<? extends PresenterFactory<?, ?>>, PresenterFactory<?, ?>> getPresenterFactories()
+	{
+		return new HashMap<>();
+	}
+
+	@Override
+	public Map<Class<? extends ParamsHolder<?>>, ParamsHolder<?>> getParamsHolders()
+	{
+		return new HashMap<>();
+	}
+
+	@Override
+	public Collection<Class<?>> getPresentersContainers()
+	{
+		return Collections.emptyList();
+	}
+}
@@ -0,0 +1,160 @@
+package com.arellomobile.mvp;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Date: 11.03.2016
+ * Time: 11:20
+ * <p>
+ * Thread safe map, which holds values by {@link SoftReference} and remembers order of access to them. Values are
+ * cleared by garbage collector only when memory is low, and could be dropped in least recently used order by owner
+ * of map(see {@link #getKeysInAccessOrder()}).
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ * @author Alexander Blinov
+ */
+final class SoftValueLruMap<K, V> extends AbstractMap<K, V>
+{
+	private final HashMap<K, SoftValue<K, V>> mReferences = new HashMap<>();
+	// access ordered keys, values are not used
+	private final LinkedHashMap<K, Boolean> mAccessOrder = new LinkedHashMap<>(16, 0.75f, true);
+	private final ReferenceQueue<V> mQueue = new ReferenceQueue<>();
+
+	@Override
+	public synchronized V get(Object key)
+	{
+		processQueue();
+
+		SoftValue<K, V> valueRef = mReferences.get(key);
+		if (valueRef != null)
+		{
+			// access ordered map moves key to tail
+			mAccessOrder.get(key);
+		}
+
+		return getReferenceValue(valueRef);
+	}
+
+	/**
+	 * Same as {@link #get(Object)}, but does not change access order
+	 */
+	synchronized V peek(K key)
+	{
+		processQueue();
+
+		return getReferenceValue(mReferences.get(key));
+	}
+
+	@Override
+	public synchronized V put(K key, V value)
+	{
+		processQueue();
+
+		mAccessOrder.put(key, Boolean.TRUE);
+		return getReferenceValue(mReferences.put(key, new SoftValue<>(key, value, mQueue)));
+	}
+
+	@Override
+	public synchronized V remove(Object key)
+	{
+		processQueue();
+
+		mAccessOrder.remove(key);
+		return getReferenceValue(mReferences.remove(key));
+	}
+
+	@Override
+	public synchronized boolean containsKey(Object key)
+	{
+		processQueue();
+
+		return mReferences.containsKey(key);
+	}
+
+	@Override
+	public synchronized int size()
+	{
+		processQueue();
+
+		return mReferences.size();
+	}
+
+	@Override
+	public synchronized void clear()
+	{
+		mReferences.clear();
+		mAccessOrder.clear();
+	}
+
+	/**
+	 * @return snapshot of keys, from least recently used to most recently used
+	 */
+	synchronized List<K> getKeysInAccessOrder()
+	{
+		processQueue();
+
+		return new ArrayList<>(mAccessOrder.keySet());
+	}
+
+	/**
+	 * @return snapshot of entries with not cleared values
+	 */
+	@Override
+	public synchronized Set<Map.Entry<K, V>> entrySet()
+	{
+		processQueue();
+
+		Set<Map.Entry<K, V>> entries = new LinkedHashSet<>();
+		for (K key : mAccessOrder.keySet())
+		{
+			V value = getReferenceValue(mReferences.get(key));
+			if (value != null)
+			{
+				entries.add(new SimpleEntry<>(key, value));
+			}
+		}
+		return entries;
+	}
+
+	private V getReferenceValue(SoftValue<K, V> valueRef)
+	{
+		return valueRef == null ? null : valueRef.get();
+	}
+
+	// remove entries, which values were cleared by garbage collector
+	@SuppressWarnings("unchecked")
+	private void processQueue()
+	{
+		SoftValue<K, V> valueRef;
+		while ((valueRef = (SoftValue<K, V>) mQueue.poll()) != null)
+		{
+			// entry could be already replaced by new value
+			if (mReferences.get(valueRef.mKey) == valueRef)
+			{
+				mReferences.remove(valueRef.mKey);
+				mAccessOrder.remove(valueRef.mKey);
+			}
+		}
+	}
+
+	private static class SoftValue<K, V> extends SoftReference<V>
+	{
+		private final K mKey;
+
+		private SoftValue(K key, V value, ReferenceQueue<? super V> queue)
+		{
+			super(value, queue);
+			mKey = key;
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package com.arellomobile.mvp;
+
+import com.arellomobile.mvp.viewstate.MvpViewState;
+
+/**
+ * Date: 03.03.2016
+ * Time: 11:05
+ *
+ * @author Yuri Shmakov
+ */
+public abstract class ViewStateProvider
+{
+	/**
+	 * <p>Presenter creates view state object by calling this method.</p>
+	 *
+	 * @return new instance of view state
+	 */
+	public abstract MvpViewState getViewState();
+}
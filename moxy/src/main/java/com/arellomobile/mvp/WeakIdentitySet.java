@@ -0,0 +1,245 @@
+package com.arellomobile.mvp;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Date: 15.03.2016
+ * Time: 11:32
+ * <p>
+ * Set of weakly referenced views. Unlike set backed by {@link java.util.WeakHashMap}, it compares elements by identity,
+ * so overridden {@link Object#equals(Object)} and {@link Object#hashCode()} of activities and fragments are never
+ * called, and there is no reference queue to expunge on each operation.
+ * <p>
+ * Usually presenter has one view, so elements are kept in small array, and set with single element costs one reference
+ * check. Array is replaced on each change(copy on write), so set could be changed while it is iterated, e.g. when view
+ * detaches itself from command of view state. Cleared references are dropped on next change.
+ * <p>
+ * Set should be changed by one thread at time(usually main thread), but it could be read from any thread: readers see
+ * consistent snapshot of array, e.g. {@link PresenterStore} checks, that presenter has no views, before eviction.
+ *
+ * @author Alexander Blinov
+ */
+public final class WeakIdentitySet<E> extends AbstractSet<E>
+{
+	private static final WeakReference<?>[] EMPTY = new WeakReference<?>[0];
+
+	private volatile WeakReference<?>[] mElements = EMPTY;
+
+	@Override
+	public boolean add(E element)
+	{
+		if (element == null)
+		{
+			throw new NullPointerException("element should not be null");
+		}
+
+		if (contains(element))
+		{
+			return false;
+		}
+
+		WeakReference<?>[] elements = mElements;
+
+		WeakReference<?>[] newElements = new WeakReference<?>[liveCount(elements) + 1];
+		int index = copyLive(elements, newElements, null);
+		newElements[index] = new WeakReference<>(element);
+
+		mElements = newElements;
+
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object element)
+	{
+		if (!contains(element))
+		{
+			return false;
+		}
+
+		WeakReference<?>[] elements = mElements;
+
+		if (elements.length == 1)
+		{
+			mElements = EMPTY;
+			return true;
+		}
+
+		WeakReference<?>[] newElements = new WeakReference<?>[elements.length];
+		int count = copyLive(elements, newElements, element);
+
+		if (count == 0)
+		{
+			mElements = EMPTY;
+		}
+		else if (count < newElements.length)
+		{
+			WeakReference<?>[] trimmedElements = new WeakReference<?>[count];
+			System.arraycopy(newElements, 0, trimmedElements, 0, count);
+			mElements = trimmedElements;
+		}
+		else
+		{
+			mElements = newElements;
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object element)
+	{
+		WeakReference<?>[] elements = mElements;
+
+		if (element == null)
+		{
+			return false;
+		}
+
+		if (elements.length == 1)
+		{
+			return elements[0].get() == element;
+		}
+
+		for (WeakReference<?> reference : elements)
+		{
+			if (reference.get() == element)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		WeakReference<?>[] elements = mElements;
+
+		if (elements.length == 1)
+		{
+			return elements[0].get() == null;
+		}
+
+		return liveCount(elements) == 0;
+	}
+
+	@Override
+	public int size()
+	{
+		return liveCount(mElements);
+	}
+
+	@Override
+	public void clear()
+	{
+		mElements = EMPTY;
+	}
+
+	/**
+	 * Iterator walks over elements, which were in set when iterator was created
+	 */
+	@Override
+	public Iterator<E> iterator()
+	{
+		return new WeakIdentityIterator(mElements);
+	}
+
+	private static int liveCount(WeakReference<?>[] elements)
+	{
+		int count = 0;
+		for (WeakReference<?> reference : elements)
+		{
+			if (reference.get() != null)
+			{
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Copies references to live elements, except given one
+	 *
+	 * @return count of copied references
+	 */
+	private static int copyLive(WeakReference<?>[] from, WeakReference<?>[] to, Object except)
+	{
+		int count = 0;
+		for (WeakReference<?> reference : from)
+		{
+			Object element = reference.get();
+			if (element != null && element != except)
+			{
+				to[count++] = reference;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Array could not be typed by E, but it contains only references added by {@link #add(Object)}
+	 */
+	@SuppressWarnings("unchecked")
+	private static <E> E get(WeakReference<?> reference)
+	{
+		return (E) reference.get();
+	}
+
+	private class WeakIdentityIterator implements Iterator<E>
+	{
+		private final WeakReference<?>[] mSnapshot;
+		private int mIndex;
+		private E mNext;
+		private E mLast;
+
+		WeakIdentityIterator(WeakReference<?>[] snapshot)
+		{
+			mSnapshot = snapshot;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			while (mNext == null && mIndex < mSnapshot.length)
+			{
+				// strong reference keeps element until it is returned by next()
+				mNext = get(mSnapshot[mIndex++]);
+			}
+
+			return mNext != null;
+		}
+
+		@Override
+		public E next()
+		{
+			if (!hasNext())
+			{
+				throw new NoSuchElementException();
+			}
+
+			mLast = mNext;
+			mNext = null;
+
+			return mLast;
+		}
+
+		@Override
+		public void remove()
+		{
+			if (mLast == null)
+			{
+				throw new IllegalStateException();
+			}
+
+			WeakIdentitySet.this.remove(mLast);
+			mLast = null;
+		}
+	}
+}
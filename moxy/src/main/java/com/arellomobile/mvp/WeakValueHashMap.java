@@ -1,11 +1,13 @@
 package com.arellomobile.mvp;
 
+import java.util.AbstractCollection;
 import java.util.AbstractMap;
-import java.util.ArrayList;
+import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.WeakHashMap;
 import java.lang.ref.ReferenceQueue;
@@ -80,18 +82,20 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
 
 	@Override
 	public V remove(Object key) {
+		processQueue();
 		return getReferenceValue(references.remove(key));
 	}
 
 	@Override
 	public void clear() {
 		references.clear();
+		processQueue();
 	}
 
 	@Override
 	public boolean containsKey(Object key) {
-		processQueue();
-		return references.containsKey(key);
+		// key of collected value could be not processed yet
+		return get(key) != null;
 	}
 
 	@Override
@@ -105,37 +109,132 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
 		return false;
 	}
 
+	/**
+	 * Live read only view, backed by map. Iteration skips keys, which values are already collected
+	 */
 	@Override
 	public Set<K> keySet() {
 		processQueue();
-		return references.keySet();
+
+		return new AbstractSet<K>() {
+			@Override
+			public Iterator<K> iterator() {
+				return new LiveIterator<WeakValue<V>, K>(references.values().iterator()) {
+					@Override
+					protected K map(WeakValue<V> reference, Object value) {
+						return reference.getKey();
+					}
+				};
+			}
+
+			@Override
+			public boolean contains(Object key) {
+				return containsKey(key);
+			}
+
+			@Override
+			public int size() {
+				return liveCount();
+			}
+		};
 	}
 
+	/**
+	 * @return upper bound of entries count. It includes entries, which values are collected, but not processed yet.
+	 * Views of map count only live entries
+	 */
 	@Override
 	public int size() {
 		processQueue();
 		return references.size();
 	}
 
+	@Override
+	public boolean isEmpty() {
+		processQueue();
+		return !values().iterator().hasNext();
+	}
+
+	/**
+	 * Live read only view, backed by map. Iteration skips entries, which values are already collected. Returned entries
+	 * are immutable snapshots of key and value, so they follow {@link Map.Entry} contract. Use
+	 * {@link #visitLive(Visitor)} to walk map without allocation of entries
+	 */
 	@Override
 	public Set<Map.Entry<K,V>> entrySet() {
 		processQueue();
 
-		Set<Map.Entry<K,V>> entries = new LinkedHashSet<>();
-		for (Map.Entry<K,WeakValue<V>> entry : references.entrySet()) {
-			entries.add(new AbstractMap.SimpleEntry<>(entry.getKey(), getReferenceValue(entry.getValue())));
-		}
-		return entries;
+		return new AbstractSet<Map.Entry<K,V>>() {
+			@Override
+			public Iterator<Map.Entry<K,V>> iterator() {
+				return new LiveIterator<WeakValue<V>, Map.Entry<K,V>>(references.values().iterator()) {
+					@SuppressWarnings("unchecked")
+					@Override
+					protected Map.Entry<K,V> map(WeakValue<V> reference, Object value) {
+						return new SimpleImmutableEntry<>(reference.getKey(), (V) value);
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return liveCount();
+			}
+		};
 	}
 
+	/**
+	 * Live read only view, backed by map. Iteration skips collected values
+	 */
+	@Override
 	public Collection<V> values() {
 		processQueue();
 
-		Collection<V> values = new ArrayList<V>();
+		return new AbstractCollection<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new LiveIterator<WeakValue<V>, V>(references.values().iterator()) {
+					@SuppressWarnings("unchecked")
+					@Override
+					protected V map(WeakValue<V> reference, Object value) {
+						return (V) value;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return liveCount();
+			}
+		};
+	}
+
+	/**
+	 * Visits entries, which values are not collected, without allocation of entries(e.g. to dump map for diagnostics)
+	 * @param visitor - visitor of entries
+	 */
+	public void visitLive(Visitor<? super K, ? super V> visitor) {
+		processQueue();
+
+		for (WeakValue<V> valueRef : references.values()) {
+			V value = valueRef.get();
+			if (value != null) {
+				visitor.visit(valueRef.getKey(), value);
+			}
+		}
+	}
+
+	// count of entries, which values are not collected
+	private int liveCount() {
+		processQueue();
+
+		int count = 0;
 		for (WeakValue<V> valueRef : references.values()) {
-			values.add(getReferenceValue(valueRef));
+			if (valueRef.get() != null) {
+				count++;
+			}
 		}
-		return values;
+		return count;
 	}
 
 	private V getReferenceValue(WeakValue<V> valueRef) {
@@ -147,7 +246,10 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
 	private void processQueue() {
 		WeakValue<V> valueRef;
 		while ( (valueRef = (WeakValue<V>) gcQueue.poll()) != null ) {
-			references.remove(valueRef.getKey());
+			// key could be already mapped to new value
+			if (references.get(valueRef.getKey()) == valueRef) {
+				references.remove(valueRef.getKey());
+			}
 		}
 	}
 
@@ -165,4 +267,57 @@ public class WeakValueHashMap<K,V> extends AbstractMap<K,V> {
 		}
 	}
 
+	/**
+	 * Receives entries of map in {@link #visitLive(Visitor)}
+	 */
+	public interface Visitor<K,V> {
+		void visit(K key, V value);
+	}
+
+	/**
+	 * Iterator over references, which skips collected ones. Value of next reference is strongly held,
+	 * so it could not be collected between {@link #hasNext()} and {@link #next()}
+	 */
+	static abstract class LiveIterator<R extends WeakReference<?>, E> implements Iterator<E> {
+		private final Iterator<R> references;
+		private R next;
+		private Object nextValue;
+
+		LiveIterator(Iterator<R> references) {
+			this.references = references;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (next == null && references.hasNext()) {
+				R reference = references.next();
+				Object value = reference.get();
+				if (value != null) {
+					next = reference;
+					nextValue = value;
+				}
+			}
+			return next != null;
+		}
+
+		@Override
+		public E next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			E element = map(next, nextValue);
+			next = null;
+			nextValue = null;
+			return element;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("view is read only");
+		}
+
+		protected abstract E map(R reference, Object value);
+	}
+
 }
\ No newline at end of file
@@ -8,7 +8,7 @@ import com.arellomobile.mvp.*;
  *
  * @author Alexander Blinov
  */
-public abstract class PresenterField<View extends MvpView>
+public abstract class PresenterField<PresentersContainer>
 {
 	protected final String tag;
 	protected final PresenterType presenterType;
@@ -16,9 +16,8 @@ public abstract class PresenterField<View extends MvpView>
 	protected final String presenterId;
 	protected final Class<? extends ParamsHolder<?>> paramsHolderClass;
 	protected final Class<? extends MvpPresenter<?>> presenterClass;
-	protected final MvpPresenter<View> defaultInstance;
 
-	protected PresenterField(String tag, PresenterType presenterType, Class<? extends PresenterFactory<?, ?>> factory, String presenterId, Class<? extends ParamsHolder<?>> paramsHolderClass, Class<? extends MvpPresenter<?>> presenterClass, MvpPresenter<View> defaultInstance)
+	protected PresenterField(String tag, PresenterType presenterType, Class<? extends PresenterFactory<?, ?>> factory, String presenterId, Class<? extends ParamsHolder<?>> paramsHolderClass, Class<? extends MvpPresenter<?>> presenterClass)
 	{
 		this.tag = tag;
 		this.presenterType = presenterType;
@@ -26,10 +25,37 @@ public abstract class PresenterField<View extends MvpView>
 		this.presenterId = presenterId;
 		this.paramsHolderClass = paramsHolderClass;
 		this.presenterClass = presenterClass;
-		this.defaultInstance = defaultInstance;
 	}
 
-	public abstract void setValue(MvpPresenter presenter);
+	/**
+	 * Class literal of generic class is raw, so it could not be passed as class of parametrized type. Generated fields
+	 * pass such literals through this method
+	 *
+	 * @param clazz class literal
+	 * @param <T>   parametrized type of class
+	 * @return same class
+	 */
+	@SuppressWarnings("unchecked")
+	protected static <T> Class<? extends T> typed(Class<?> clazz)
+	{
+		return (Class<? extends T>) clazz;
+	}
+
+	/**
+	 * Sets presenter to field of container. Field itself holds no reference to container
+	 *
+	 * @param target    container of presenter field
+	 * @param presenter presenter to inject
+	 */
+	public abstract void bind(PresentersContainer target, MvpPresenter presenter);
+
+	/**
+	 * Creates default instance of presenter. Called only if there is no presenter with same tag
+	 * in {@link com.arellomobile.mvp.PresenterStore}, so retained presenters are never constructed twice
+	 *
+	 * @return instance created by empty constructor, or null if empty constructor not exists
+	 */
+	public abstract MvpPresenter<?> providePresenter();
 
 	public String getTag()
 	{
@@ -60,9 +86,4 @@ public abstract class PresenterField<View extends MvpView>
 	{
 		return presenterClass;
 	}
-
-	public MvpPresenter<View> getDefaultInstance()
-	{
-		return defaultInstance;
-	}
 }
@@ -8,5 +8,5 @@ package com.arellomobile.mvp.presenter;
  */
 public enum PresenterType
 {
-	LOCAL, WEAK, GLOBAL
+	LOCAL, WEAK, GLOBAL, SOFT
 }
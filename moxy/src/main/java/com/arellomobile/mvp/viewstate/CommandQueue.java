@@ -0,0 +1,81 @@
+package com.arellomobile.mvp.viewstate;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import com.arellomobile.mvp.MvpView;
+
+/**
+ * Date: 17.03.2016
+ * Time: 11:20
+ * <p>
+ * Lock free queue of commands, posted to main thread. Any thread could offer command, only main thread drains queue.
+ * <p>
+ * Commands are pushed to stack by compare and set of its head, so producers never block each other. Consumer takes
+ * whole stack by one swap and reverses it, so drain costs one atomic operation for all commands, offered since previous
+ * drain.
+ *
+ * @author Yuri Shmakov
+ */
+final class CommandQueue<View extends MvpView>
+{
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static final AtomicReferenceFieldUpdater<CommandQueue, Node> HEAD_UPDATER = AtomicReferenceFieldUpdater.newUpdater(CommandQueue.class, Node.class, "mHead");
+
+	private volatile Node<View> mHead;
+
+	/**
+	 * @param command command to add
+	 * @return true if queue was empty, so drain should be scheduled
+	 */
+	boolean offer(ViewCommand<View> command)
+	{
+		Node<View> node = new Node<>(command);
+
+		Node<View> head;
+		do
+		{
+			head = mHead;
+			node.mNext = head;
+		}
+		while (!HEAD_UPDATER.compareAndSet(this, head, node));
+
+		return head == null;
+	}
+
+	/**
+	 * Takes all commands, offered before call, and passes them to visitor in order of offer. Commands, offered during
+	 * drain, are left for next one
+	 *
+	 * @param visitor receiver of commands
+	 */
+	@SuppressWarnings("unchecked")
+	void drain(ViewCommandLog.Visitor<View> visitor)
+	{
+		Node<View> node = HEAD_UPDATER.getAndSet(this, null);
+
+		Node<View> reversed = null;
+		while (node != null)
+		{
+			Node<View> next = node.mNext;
+			node.mNext = reversed;
+			reversed = node;
+			node = next;
+		}
+
+		for (node = reversed; node != null; node = node.mNext)
+		{
+			visitor.visit(node.mCommand);
+		}
+	}
+
+	private static class Node<View extends MvpView>
+	{
+		final ViewCommand<View> mCommand;
+		Node<View> mNext;
+
+		Node(ViewCommand<View> command)
+		{
+			mCommand = command;
+		}
+	}
+}
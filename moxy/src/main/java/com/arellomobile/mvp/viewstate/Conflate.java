@@ -0,0 +1,25 @@
+package com.arellomobile.mvp.viewstate;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Date: 16.03.2016
+ * Time: 12:40
+ * <p>
+ * Marks method of view, which could be called many times per frame(e.g. progress of download). Command of such method
+ * is processed by strategy on each call, so state of view state is same, as without conflation. But command is
+ * delivered to attached views once per frame of {@link FrameSource}, and only with arguments of last call.
+ * <p>
+ * Pending commands are delivered before any not conflated command of same view state and before new view is attached,
+ * so order of commands, seen by views, is kept.
+ *
+ * @author Yuri Shmakov
+ */
+@Target(value = ElementType.METHOD)
+@Retention(value = RetentionPolicy.RUNTIME)
+public @interface Conflate
+{
+}
@@ -0,0 +1,32 @@
+package com.arellomobile.mvp.viewstate;
+
+/**
+ * Date: 16.03.2016
+ * Time: 12:52
+ * <p>
+ * Source of frames, which delivers commands of {@link Conflate} methods. Set by
+ * {@link MvpViewState#setFrameSource(FrameSource)}
+ *
+ * @author Yuri Shmakov
+ */
+public interface FrameSource
+{
+	/**
+	 * Runs callback at once, so conflated commands are delivered as usual commands. Used by default
+	 */
+	FrameSource IMMEDIATE = new FrameSource()
+	{
+		@Override
+		public void postFrameCallback(Runnable callback)
+		{
+			callback.run();
+		}
+	};
+
+	/**
+	 * Schedules callback to start of next frame. Callback should be run at thread of view state(main thread)
+	 *
+	 * @param callback callback, which delivers pending commands
+	 */
+	void postFrameCallback(Runnable callback);
+}
@@ -0,0 +1,20 @@
+package com.arellomobile.mvp.viewstate;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Date: 17.03.2016
+ * Time: 11:05
+ * <p>
+ * Executor of main thread, which allows to call methods of view state from any thread. Set by
+ * {@link MvpViewState#setMainThreadExecutor(MainThreadExecutor)}
+ *
+ * @author Yuri Shmakov
+ */
+public interface MainThreadExecutor extends Executor
+{
+	/**
+	 * @return true if current thread is main thread, so view state could apply command at once
+	 */
+	boolean isMainThread();
+}
@@ -1,11 +1,13 @@
 package com.arellomobile.mvp.viewstate;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
 
 import com.arellomobile.mvp.MvpView;
+import com.arellomobile.mvp.WeakIdentitySet;
 
 /**
  * Date: 15.12.2015
@@ -15,13 +17,67 @@ import com.arellomobile.mvp.MvpView;
  */
 public abstract class MvpViewState<View extends MvpView>
 {
+	private static volatile FrameSource sFrameSource = FrameSource.IMMEDIATE;
+	private static volatile MainThreadExecutor sMainThreadExecutor;
+
 	protected Set<View> mViews;
 	protected Set<View> mInRestoreState;
+	protected ViewCommands<View> mViewCommands = new ViewCommands<>();
+
+	private int mBatchDepth;
+	private List<ViewCommand<View>> mBatch;
+	private final CommandQueue<View> mMainThreadQueue = new CommandQueue<>();
+	private final Runnable mDrainCallback = new Runnable()
+	{
+		@Override
+		public void run()
+		{
+			drainMainThreadQueue();
+		}
+	};
+
+	private Map<Class<?>, ViewCommand<View>> mConflatedCommands;
+	private final Runnable mFrameCallback = new Runnable()
+	{
+		@Override
+		public void run()
+		{
+			flushConflated();
+		}
+	};
 
 	public MvpViewState()
 	{
-		mViews = Collections.newSetFromMap(new WeakHashMap<View, Boolean>());
-		mInRestoreState = Collections.newSetFromMap(new WeakHashMap<View, Boolean>());
+		mViews = new WeakIdentitySet<>();
+		mInRestoreState = new WeakIdentitySet<>();
+	}
+
+	/**
+	 * Sets source of frames, which deliver commands of {@link Conflate} methods. By default commands are delivered at
+	 * once
+	 *
+	 * @param frameSource frame source, shared by all view states
+	 */
+	public static void setFrameSource(FrameSource frameSource)
+	{
+		if (frameSource == null)
+		{
+			throw new IllegalArgumentException("Frame source must be not null");
+		}
+
+		sFrameSource = frameSource;
+	}
+
+	/**
+	 * Allows to call methods of view states from any thread. Commands, called not from main thread, are queued and
+	 * applied at main thread by executor. Without executor(by default) view states should be called from main thread
+	 * only. Batches and attach of views should be always done at main thread
+	 *
+	 * @param mainThreadExecutor executor of main thread, shared by all view states, or null to disable
+	 */
+	public static void setMainThreadExecutor(MainThreadExecutor mainThreadExecutor)
+	{
+		sMainThreadExecutor = mainThreadExecutor;
 	}
 
 	/**
@@ -43,6 +99,9 @@ public abstract class MvpViewState<View extends MvpView>
 			throw new IllegalArgumentException("Mvp view must be not null");
 		}
 
+		// attached views should see pending commands before new one is restored
+		flushConflated();
+
 		boolean isViewAdded = mViews.add(view);
 
 		if (!isViewAdded)
@@ -78,6 +137,178 @@ public abstract class MvpViewState<View extends MvpView>
 		return mViews;
 	}
 
+	/**
+	 * @return true if command could be applied at current thread. Otherwise it should be passed to
+	 * {@link #postToMainThread(ViewCommand)}
+	 */
+	protected boolean isMainThread()
+	{
+		MainThreadExecutor executor = sMainThreadExecutor;
+
+		return executor == null || executor.isMainThread();
+	}
+
+	/**
+	 * Queues command, called not from main thread. Commands of all threads are applied at main thread in order of
+	 * queueing, by one task of {@link MainThreadExecutor}
+	 *
+	 * @param command command to apply at main thread
+	 */
+	protected void postToMainThread(ViewCommand<View> command)
+	{
+		if (mMainThreadQueue.offer(command))
+		{
+			sMainThreadExecutor.execute(mDrainCallback);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void drainMainThreadQueue()
+	{
+		// view state implements view, so command calls same method of view state again, now at main thread
+		final View viewState = (View) this;
+
+		mMainThreadQueue.drain(new ViewCommandLog.Visitor<View>()
+		{
+			@Override
+			public void visit(ViewCommand<View> command)
+			{
+				command.apply(viewState);
+			}
+		});
+	}
+
+	/**
+	 * Starts batch of commands. Till {@link #commitBatch()} commands are neither processed by strategies nor delivered
+	 * to views, so views never observe part of batch. Batches could be nested, commands are applied by commit of
+	 * outermost one
+	 */
+	public void beginBatch()
+	{
+		mBatchDepth++;
+	}
+
+	/**
+	 * Commits batch, started by {@link #beginBatch()}. Commands of batch are processed by strategies in one pass, and
+	 * then each attached view receives all commands of batch in order of calls
+	 *
+	 * @throws IllegalStateException if batch was not started
+	 */
+	public void commitBatch()
+	{
+		if (mBatchDepth == 0)
+		{
+			throw new IllegalStateException("Batch was not started");
+		}
+
+		mBatchDepth--;
+
+		if (mBatchDepth > 0 || mBatch == null)
+		{
+			return;
+		}
+
+		// views could call presenter back, so batch could be started again during delivery
+		List<ViewCommand<View>> commands = mBatch;
+		mBatch = null;
+
+		for (ViewCommand<View> command : commands)
+		{
+			mViewCommands.beforeApply(command);
+		}
+
+		if (mViews == null || mViews.isEmpty())
+		{
+			return;
+		}
+
+		flushConflated();
+
+		for (View view : mViews)
+		{
+			for (ViewCommand<View> command : commands)
+			{
+				command.apply(view);
+			}
+		}
+
+		for (ViewCommand<View> command : commands)
+		{
+			mViewCommands.afterApply(command);
+		}
+	}
+
+	/**
+	 * @return true if commands should be added to batch instead of applying
+	 */
+	protected boolean isInBatch()
+	{
+		return mBatchDepth > 0;
+	}
+
+	/**
+	 * Keeps command till commit of batch
+	 *
+	 * @param command command, not processed by strategy yet
+	 */
+	protected void addToBatch(ViewCommand<View> command)
+	{
+		if (mBatch == null)
+		{
+			mBatch = new ArrayList<>();
+		}
+
+		mBatch.add(command);
+	}
+
+	/**
+	 * Keeps command of {@link Conflate} method till next frame. Command of same class, which is already pending,
+	 * is replaced, so views receive only last arguments
+	 *
+	 * @param command command, already processed by strategy
+	 */
+	protected void conflate(ViewCommand<View> command)
+	{
+		if (mConflatedCommands == null)
+		{
+			mConflatedCommands = new LinkedHashMap<>();
+		}
+
+		boolean isFrameRequested = !mConflatedCommands.isEmpty();
+
+		mConflatedCommands.put(command.getClass(), command);
+
+		if (!isFrameRequested)
+		{
+			sFrameSource.postFrameCallback(mFrameCallback);
+		}
+	}
+
+	/**
+	 * Delivers pending commands of {@link Conflate} methods to attached views. Called by frame, and before not
+	 * conflated commands
+	 */
+	protected void flushConflated()
+	{
+		Map<Class<?>, ViewCommand<View>> commands = mConflatedCommands;
+
+		if (commands == null || commands.isEmpty())
+		{
+			return;
+		}
+
+		// views could call presenter back, so commands, conflated during flush, wait for next frame
+		mConflatedCommands = null;
+
+		for (ViewCommand<View> command : commands.values())
+		{
+			for (View view : mViews)
+			{
+				command.apply(view);
+			}
+		}
+	}
+
 	/**
 	 * Check if view is in restore state or not
 	 *
@@ -1,6 +1,7 @@
 package com.arellomobile.mvp.viewstate;
 
 import com.arellomobile.mvp.MvpView;
+import com.arellomobile.mvp.viewstate.strategy.StateStrategies;
 import com.arellomobile.mvp.viewstate.strategy.StateStrategy;
 
 /**
@@ -13,11 +14,33 @@ public abstract class ViewCommand<View extends MvpView>
 {
 	private final String mTag;
 	private final Class<? extends StateStrategy> mStateStrategyType;
+	private final StateStrategy mStateStrategy;
+	private final int mCapacity;
 
 	protected ViewCommand(String tag, Class<? extends StateStrategy> stateStrategyType)
+	{
+		this(tag, stateStrategyType, 0);
+	}
+
+	protected ViewCommand(String tag, Class<? extends StateStrategy> stateStrategyType, int capacity)
+	{
+		this(tag, StateStrategies.get(stateStrategyType), capacity);
+	}
+
+	/**
+	 * @param stateStrategy shared strategy instance, usually resolved by {@link StateStrategies#get(Class)} once per view state class
+	 */
+	protected ViewCommand(String tag, StateStrategy stateStrategy)
+	{
+		this(tag, stateStrategy, 0);
+	}
+
+	protected ViewCommand(String tag, StateStrategy stateStrategy, int capacity)
 	{
 		mTag = tag;
-		mStateStrategyType = stateStrategyType;
+		mStateStrategyType = stateStrategy.getClass();
+		mStateStrategy = stateStrategy;
+		mCapacity = capacity;
 	}
 
 	public abstract void apply(View view);
@@ -31,4 +54,17 @@ public abstract class ViewCommand<View extends MvpView>
 	{
 		return mStateStrategyType;
 	}
+
+	public StateStrategy getStateStrategy()
+	{
+		return mStateStrategy;
+	}
+
+	/**
+	 * @return {@link com.arellomobile.mvp.viewstate.strategy.StateStrategyType#capacity()} of method, or 0 if it is not set
+	 */
+	public int getCapacity()
+	{
+		return mCapacity;
+	}
 }
@@ -0,0 +1,693 @@
+package com.arellomobile.mvp.viewstate;
+
+import java.util.AbstractSequentialList;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.arellomobile.mvp.MvpView;
+
+/**
+ * Date: 16.03.2016
+ * Time: 10:14
+ * <p>
+ * State of {@link ViewCommands}: ordered linked log of commands, which also links commands of same class and commands
+ * with same {@link ViewCommand#getTag() tag} into chains. So built-in strategies find and remove command of given
+ * class or tag in constant time, instead of scan of whole state.
+ * <p>
+ * Log is {@link java.util.List}, so custom {@link com.arellomobile.mvp.viewstate.strategy.StateStrategy strategies}
+ * work with it as before. Appending and removing by iterator cost constant time, insertion into middle of log looks for
+ * previous command of same class and tag.
+ * <p>
+ * Log could be changed while its commands are replayed by {@link #replay(Visitor)}. Replay walks version of log, which
+ * existed when replay started, without copy: each change increments version of log, and commands, removed during
+ * replay, stay in log as tombstones(invisible for list methods and indexes) until replay ends.
+ *
+ * @author Yuri Shmakov
+ */
+public class ViewCommandLog<View extends MvpView> extends AbstractSequentialList<ViewCommand<View>>
+{
+	private final Index<View> mClassIndex = new Index<View>()
+	{
+		@Override
+		Object keyOf(ViewCommand<View> command)
+		{
+			return command.getClass();
+		}
+
+		@Override
+		Links<View> linksOf(Node<View> node)
+		{
+			return node.mClassLinks;
+		}
+	};
+
+	private final Index<View> mTagIndex = new Index<View>()
+	{
+		@Override
+		Object keyOf(ViewCommand<View> command)
+		{
+			return command.getTag();
+		}
+
+		@Override
+		Links<View> linksOf(Node<View> node)
+		{
+			return node.mTagLinks;
+		}
+	};
+
+	private Node<View> mHead;
+	private Node<View> mTail;
+	private int mSize;
+
+	private long mVersion;
+	private int mReplayDepth;
+	private final List<Node<View>> mTombstones = new ArrayList<>();
+
+	@Override
+	public boolean add(ViewCommand<View> command)
+	{
+		linkBefore(null, command);
+
+		return true;
+	}
+
+	/**
+	 * Removes first command of given class
+	 *
+	 * @param commandClass class of command
+	 * @return removed command, or null if log has no commands of this class
+	 */
+	public ViewCommand<View> removeFirstOfClass(Class<?> commandClass)
+	{
+		return removeFirst(mClassIndex, commandClass);
+	}
+
+	/**
+	 * Removes first command with given tag
+	 *
+	 * @param tag tag of command
+	 * @return removed command, or null if log has no commands with this tag
+	 */
+	public ViewCommand<View> removeFirstWithTag(String tag)
+	{
+		return removeFirst(mTagIndex, tag);
+	}
+
+	/**
+	 * Adds command to end of log. If log already contains capacity commands of same class, oldest of them is removed,
+	 * and its node is reused for incoming command. So commands of class form ring buffer, and eviction allocates nothing
+	 *
+	 * @param command  command to add
+	 * @param capacity max count of commands of same class, or 0 for unbounded count
+	 * @return evicted command, or null
+	 */
+	public ViewCommand<View> addBounded(ViewCommand<View> command, int capacity)
+	{
+		if (command == null)
+		{
+			throw new NullPointerException("command should not be null");
+		}
+
+		Chain<View> chain = mClassIndex.get(command.getClass());
+
+		if (capacity <= 0 || chain == null || chain.mSize < capacity)
+		{
+			add(command);
+			return null;
+		}
+
+		if (mReplayDepth > 0)
+		{
+			// node could not be moved, because replay could stand on it
+			ViewCommand<View> evictedCommand = chain.mFirst.mCommand;
+			while (chain.mSize >= capacity)
+			{
+				unlink(chain.mFirst);
+			}
+			add(command);
+
+			return evictedCommand;
+		}
+
+		// drop extra commands, if capacity was decreased
+		while (chain.mSize > capacity)
+		{
+			unlink(chain.mFirst);
+		}
+
+		Node<View> node = chain.mFirst;
+		ViewCommand<View> evictedCommand = node.mCommand;
+
+		// move oldest node to end of log. Chains stay in indexes, so nothing is allocated
+		unlinkFromLog(node);
+		mClassIndex.unlink(node, evictedCommand, true);
+		mTagIndex.unlink(node, evictedCommand, true);
+
+		node.mCommand = command;
+		node.mAddedVersion = ++mVersion;
+
+		linkToLog(node, null);
+		mClassIndex.link(node, true);
+		mTagIndex.link(node, true);
+		mTagIndex.removeIfEmpty(evictedCommand);
+
+		modCount++;
+
+		return evictedCommand;
+	}
+
+	/**
+	 * @param commandClass class of command
+	 * @return count of commands of given class in log
+	 */
+	public int countOfClass(Class<?> commandClass)
+	{
+		Chain<View> chain = mClassIndex.get(commandClass);
+
+		return chain == null ? 0 : chain.mSize;
+	}
+
+	@Override
+	public void clear()
+	{
+		mClassIndex.clear();
+		mTagIndex.clear();
+		mSize = 0;
+		mVersion++;
+		modCount++;
+
+		if (mReplayDepth > 0)
+		{
+			for (Node<View> node = mHead; node != null; node = node.mNext)
+			{
+				if (!node.mRemoved)
+				{
+					markRemoved(node);
+				}
+			}
+			return;
+		}
+
+		mHead = null;
+		mTail = null;
+	}
+
+	/**
+	 * Visits commands, which are in log at the moment of call, in order of log. Log could be changed by visitor: removed
+	 * commands are visited anyway, and added commands are not, so result is same as for iteration over copy of log
+	 *
+	 * @param visitor visitor of commands
+	 */
+	public void replay(Visitor<View> visitor)
+	{
+		long version = mVersion;
+		mReplayDepth++;
+
+		try
+		{
+			for (Node<View> node = mHead; node != null; node = node.mNext)
+			{
+				if (node.mAddedVersion <= version && (!node.mRemoved || node.mRemovedVersion > version))
+				{
+					visitor.visit(node.mCommand);
+				}
+			}
+		}
+		finally
+		{
+			mReplayDepth--;
+
+			if (mReplayDepth == 0 && !mTombstones.isEmpty())
+			{
+				for (Node<View> tombstone : mTombstones)
+				{
+					unlinkFromLog(tombstone);
+				}
+				mTombstones.clear();
+			}
+		}
+	}
+
+	@Override
+	public int size()
+	{
+		return mSize;
+	}
+
+	@Override
+	public ListIterator<ViewCommand<View>> listIterator(int index)
+	{
+		if (index < 0 || index > mSize)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", size: " + mSize);
+		}
+
+		return new LogIterator(index);
+	}
+
+	private ViewCommand<View> removeFirst(Index<View> index, Object key)
+	{
+		Chain<View> chain = index.get(key);
+
+		if (chain == null)
+		{
+			return null;
+		}
+
+		ViewCommand<View> command = chain.mFirst.mCommand;
+		unlink(chain.mFirst);
+
+		return command;
+	}
+
+	/**
+	 * Inserts command before given node
+	 *
+	 * @param successor node, before which command is inserted, or null to append command
+	 */
+	private Node<View> linkBefore(Node<View> successor, ViewCommand<View> command)
+	{
+		if (command == null)
+		{
+			throw new NullPointerException("command should not be null");
+		}
+
+		Node<View> node = new Node<>(command);
+		node.mAddedVersion = ++mVersion;
+
+		linkToLog(node, successor);
+		mClassIndex.link(node, successor == null);
+		mTagIndex.link(node, successor == null);
+
+		mSize++;
+		modCount++;
+
+		return node;
+	}
+
+	private void linkToLog(Node<View> node, Node<View> successor)
+	{
+		Node<View> predecessor = successor == null ? mTail : successor.mPrev;
+
+		node.mPrev = predecessor;
+		node.mNext = successor;
+		if (predecessor == null)
+		{
+			mHead = node;
+		}
+		else
+		{
+			predecessor.mNext = node;
+		}
+		if (successor == null)
+		{
+			mTail = node;
+		}
+		else
+		{
+			successor.mPrev = node;
+		}
+	}
+
+	private void unlink(Node<View> node)
+	{
+		mClassIndex.unlink(node, node.mCommand, false);
+		mTagIndex.unlink(node, node.mCommand, false);
+
+		mSize--;
+		mVersion++;
+		modCount++;
+
+		if (mReplayDepth > 0)
+		{
+			markRemoved(node);
+		}
+		else
+		{
+			unlinkFromLog(node);
+		}
+	}
+
+	/**
+	 * Leaves node in log as tombstone, until all replays end
+	 */
+	private void markRemoved(Node<View> node)
+	{
+		node.mRemoved = true;
+		node.mRemovedVersion = mVersion;
+		mTombstones.add(node);
+	}
+
+	/**
+	 * @return given node or next node, which is not tombstone
+	 */
+	private static <View extends MvpView> Node<View> nextLive(Node<View> node)
+	{
+		while (node != null && node.mRemoved)
+		{
+			node = node.mNext;
+		}
+
+		return node;
+	}
+
+	/**
+	 * @return given node or previous node, which is not tombstone
+	 */
+	private static <View extends MvpView> Node<View> previousLive(Node<View> node)
+	{
+		while (node != null && node.mRemoved)
+		{
+			node = node.mPrev;
+		}
+
+		return node;
+	}
+
+	private void unlinkFromLog(Node<View> node)
+	{
+		if (node.mPrev == null)
+		{
+			mHead = node.mNext;
+		}
+		else
+		{
+			node.mPrev.mNext = node.mNext;
+		}
+		if (node.mNext == null)
+		{
+			mTail = node.mPrev;
+		}
+		else
+		{
+			node.mNext.mPrev = node.mPrev;
+		}
+	}
+
+	private static final class Node<View extends MvpView>
+	{
+		private ViewCommand<View> mCommand;
+		private Node<View> mPrev;
+		private Node<View> mNext;
+		private long mAddedVersion;
+		private long mRemovedVersion;
+		private boolean mRemoved;
+		private final Links<View> mClassLinks = new Links<>();
+		private final Links<View> mTagLinks = new Links<>();
+
+		Node(ViewCommand<View> command)
+		{
+			mCommand = command;
+		}
+	}
+
+	/**
+	 * Links of node to neighbours in chain of index
+	 */
+	private static final class Links<View extends MvpView>
+	{
+		private Node<View> mPrev;
+		private Node<View> mNext;
+	}
+
+	/**
+	 * Receives commands in {@link #replay(Visitor)}
+	 */
+	public interface Visitor<View extends MvpView>
+	{
+		void visit(ViewCommand<View> command);
+	}
+
+	private static final class Chain<View extends MvpView>
+	{
+		private Node<View> mFirst;
+		private Node<View> mLast;
+		private int mSize;
+	}
+
+	/**
+	 * Chains of commands with same key, in order of log
+	 */
+	private static abstract class Index<View extends MvpView>
+	{
+		private final Map<Object, Chain<View>> mChains = new HashMap<>();
+
+		abstract Object keyOf(ViewCommand<View> command);
+
+		abstract Links<View> linksOf(Node<View> node);
+
+		Chain<View> get(Object key)
+		{
+			return mChains.get(key);
+		}
+
+		void clear()
+		{
+			mChains.clear();
+		}
+
+		void link(Node<View> node, boolean appended)
+		{
+			Object key = keyOf(node.mCommand);
+			Chain<View> chain = mChains.get(key);
+
+			if (chain == null)
+			{
+				chain = new Chain<>();
+				mChains.put(key, chain);
+			}
+
+			Node<View> previous = chain.mLast;
+			if (!appended)
+			{
+				// command is inserted into middle of log, so look for previous command with same key
+				previous = node.mPrev;
+				while (previous != null && (previous.mRemoved || !equals(key, keyOf(previous.mCommand))))
+				{
+					previous = previous.mPrev;
+				}
+			}
+
+			Node<View> next = previous == null ? chain.mFirst : linksOf(previous).mNext;
+
+			Links<View> links = linksOf(node);
+			links.mPrev = previous;
+			links.mNext = next;
+			if (previous == null)
+			{
+				chain.mFirst = node;
+			}
+			else
+			{
+				linksOf(previous).mNext = node;
+			}
+			if (next == null)
+			{
+				chain.mLast = node;
+			}
+			else
+			{
+				linksOf(next).mPrev = node;
+			}
+
+			chain.mSize++;
+		}
+
+		/**
+		 * @param command        command of node, which defines its chain
+		 * @param keepEmptyChain true to keep empty chain in index, if node will be linked back immediately
+		 */
+		void unlink(Node<View> node, ViewCommand<View> command, boolean keepEmptyChain)
+		{
+			Object key = keyOf(command);
+			Chain<View> chain = mChains.get(key);
+			Links<View> links = linksOf(node);
+
+			if (links.mPrev == null)
+			{
+				chain.mFirst = links.mNext;
+			}
+			else
+			{
+				linksOf(links.mPrev).mNext = links.mNext;
+			}
+			if (links.mNext == null)
+			{
+				chain.mLast = links.mPrev;
+			}
+			else
+			{
+				linksOf(links.mNext).mPrev = links.mPrev;
+			}
+			links.mPrev = null;
+			links.mNext = null;
+
+			chain.mSize--;
+
+			if (chain.mSize == 0 && !keepEmptyChain)
+			{
+				mChains.remove(key);
+			}
+		}
+
+		void removeIfEmpty(ViewCommand<View> command)
+		{
+			Object key = keyOf(command);
+			Chain<View> chain = mChains.get(key);
+
+			if (chain != null && chain.mSize == 0)
+			{
+				mChains.remove(key);
+			}
+		}
+
+		private static boolean equals(Object first, Object second)
+		{
+			return first == null ? second == null : first.equals(second);
+		}
+	}
+
+	private class LogIterator implements ListIterator<ViewCommand<View>>
+	{
+		private Node<View> mNextNode;
+		private Node<View> mLastReturned;
+		private int mNextIndex;
+		private int mExpectedModCount = modCount;
+
+		LogIterator(int index)
+		{
+			mNextNode = nextLive(mHead);
+			for (int i = 0; i < index; i++)
+			{
+				mNextNode = nextLive(mNextNode.mNext);
+			}
+			mNextIndex = index;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return mNextIndex < mSize;
+		}
+
+		@Override
+		public ViewCommand<View> next()
+		{
+			checkForComodification();
+			if (!hasNext())
+			{
+				throw new NoSuchElementException();
+			}
+
+			mLastReturned = mNextNode;
+			mNextNode = nextLive(mNextNode.mNext);
+			mNextIndex++;
+
+			return mLastReturned.mCommand;
+		}
+
+		@Override
+		public boolean hasPrevious()
+		{
+			return mNextIndex > 0;
+		}
+
+		@Override
+		public ViewCommand<View> previous()
+		{
+			checkForComodification();
+			if (!hasPrevious())
+			{
+				throw new NoSuchElementException();
+			}
+
+			mNextNode = previousLive(mNextNode == null ? mTail : mNextNode.mPrev);
+			mLastReturned = mNextNode;
+			mNextIndex--;
+
+			return mLastReturned.mCommand;
+		}
+
+		@Override
+		public int nextIndex()
+		{
+			return mNextIndex;
+		}
+
+		@Override
+		public int previousIndex()
+		{
+			return mNextIndex - 1;
+		}
+
+		@Override
+		public void remove()
+		{
+			checkForComodification();
+			if (mLastReturned == null)
+			{
+				throw new IllegalStateException();
+			}
+
+			if (mNextNode == mLastReturned)
+			{
+				// removed after previous()
+				mNextNode = nextLive(mLastReturned.mNext);
+			}
+			else
+			{
+				mNextIndex--;
+			}
+
+			unlink(mLastReturned);
+			mLastReturned = null;
+			mExpectedModCount = modCount;
+		}
+
+		@Override
+		public void set(ViewCommand<View> command)
+		{
+			checkForComodification();
+			if (mLastReturned == null)
+			{
+				throw new IllegalStateException();
+			}
+
+			// replacing command could change its class, so node is relinked
+			Node<View> successor = nextLive(mLastReturned.mNext);
+			boolean wasNext = mNextNode == mLastReturned;
+			unlink(mLastReturned);
+			mLastReturned = linkBefore(successor, command);
+			if (wasNext)
+			{
+				mNextNode = mLastReturned;
+			}
+			mExpectedModCount = modCount;
+		}
+
+		@Override
+		public void add(ViewCommand<View> command)
+		{
+			checkForComodification();
+
+			linkBefore(mNextNode, command);
+			mLastReturned = null;
+			mNextIndex++;
+			mExpectedModCount = modCount;
+		}
+
+		private void checkForComodification()
+		{
+			if (modCount != mExpectedModCount)
+			{
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+}
@@ -1,12 +1,6 @@
 package com.arellomobile.mvp.viewstate;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 import com.arellomobile.mvp.MvpView;
-import com.arellomobile.mvp.viewstate.strategy.StateStrategy;
 
 /**
  * Date: 17.12.2015
@@ -16,46 +10,16 @@ import com.arellomobile.mvp.viewstate.strategy.StateStrategy;
  */
 public class ViewCommands<View extends MvpView>
 {
-	private List<ViewCommand<View>> mState = new ArrayList<>();
-	private Map<Class<? extends StateStrategy>, StateStrategy> mStrategies = new HashMap<>();
+	private ViewCommandLog<View> mState = new ViewCommandLog<>();
 
 	public void beforeApply(ViewCommand<View> viewCommand)
 	{
-		StateStrategy stateStrategy = getStateStrategy(viewCommand);
-
-		stateStrategy.beforeApply(mState, viewCommand);
+		viewCommand.getStateStrategy().beforeApply(mState, viewCommand);
 	}
 
 	public void afterApply(ViewCommand<View> viewCommand)
 	{
-		StateStrategy stateStrategy = getStateStrategy(viewCommand);
-
-		stateStrategy.afterApply(mState, viewCommand);
-	}
-
-	private StateStrategy getStateStrategy(ViewCommand<View> viewCommand)
-	{
-		StateStrategy stateStrategy = mStrategies.get(viewCommand.getStrategyType());
-		if (stateStrategy == null)
-		{
-			//noinspection TryWithIdenticalCatches
-			try
-			{
-				stateStrategy = viewCommand.getStrategyType().newInstance();
-			}
-			catch (InstantiationException e)
-			{
-				throw new IllegalArgumentException("Unable to create state strategy: " + viewCommand.toString());
-			}
-			catch (IllegalAccessException e)
-			{
-				throw new IllegalArgumentException("Unable to create state strategy: " + viewCommand.toString());
-			}
-
-			mStrategies.put(viewCommand.getStrategyType(), stateStrategy);
-		}
-
-		return stateStrategy;
+		viewCommand.getStateStrategy().afterApply(mState, viewCommand);
 	}
 
 	public boolean isEmpty()
@@ -63,15 +27,23 @@ public class ViewCommands<View extends MvpView>
 		return mState.isEmpty();
 	}
 
-	public void reapply(View view)
+	/**
+	 * Applies current state to view. State is not copied: strategies could change it from
+	 * {@link #afterApply(ViewCommand)}, but replay still walks commands, which were in state before call
+	 *
+	 * @param view view to restore
+	 */
+	public void reapply(final View view)
 	{
-		final ArrayList<ViewCommand<View>> commands = new ArrayList<>(mState);
-
-		for (ViewCommand<View> command : commands)
+		mState.replay(new ViewCommandLog.Visitor<View>()
 		{
-			command.apply(view);
+			@Override
+			public void visit(ViewCommand<View> command)
+			{
+				command.apply(view);
 
-			afterApply(command);
-		}
+				afterApply(command);
+			}
+		});
 	}
 }
@@ -0,0 +1,69 @@
+package com.arellomobile.mvp.viewstate.strategy;
+
+import java.util.Iterator;
+import java.util.List;
+
+import com.arellomobile.mvp.MvpView;
+import com.arellomobile.mvp.viewstate.ViewCommand;
+import com.arellomobile.mvp.viewstate.ViewCommandLog;
+
+/**
+ * Date: 16.03.2016
+ * Time: 15:05
+ * <p>
+ * Adds incoming command to end of state, but retains no more than {@link StateStrategyType#capacity()} commands of same
+ * method: oldest command is dropped. So state of long-lived presenter(e.g. chat or feed) does not grow forever, and
+ * restore of view replays limited count of commands. Without capacity strategy works like {@link AddToEndStrategy}
+ * <p>
+ * Example:
+ * <pre>
+ * &#64;StateStrategyType(value = AddToEndBoundedStrategy.class, capacity = 50)
+ * void addMessage(Message message);
+ * </pre>
+ *
+ * @author Yuri Shmakov
+ */
+public class AddToEndBoundedStrategy implements StateStrategy
+{
+	@Override
+	public <View extends MvpView> void beforeApply(List<ViewCommand<View>> currentState, ViewCommand<View> incomingCommand)
+	{
+		int capacity = incomingCommand.getCapacity();
+
+		if (currentState instanceof ViewCommandLog)
+		{
+			((ViewCommandLog<View>) currentState).addBounded(incomingCommand, capacity);
+			return;
+		}
+
+		if (capacity > 0)
+		{
+			int count = 0;
+			for (ViewCommand<View> command : currentState)
+			{
+				if (command.getClass() == incomingCommand.getClass())
+				{
+					count++;
+				}
+			}
+
+			Iterator<ViewCommand<View>> iterator = currentState.iterator();
+			while (count >= capacity && iterator.hasNext())
+			{
+				if (iterator.next().getClass() == incomingCommand.getClass())
+				{
+					iterator.remove();
+					count--;
+				}
+			}
+		}
+
+		currentState.add(incomingCommand);
+	}
+
+	@Override
+	public <View extends MvpView> void afterApply(List<ViewCommand<View>> currentState, ViewCommand<View> incomingCommand)
+	{
+		// pass
+	}
+}
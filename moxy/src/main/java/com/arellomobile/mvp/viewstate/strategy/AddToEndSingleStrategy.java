@@ -5,10 +5,14 @@ import java.util.List;
 
 import com.arellomobile.mvp.MvpView;
 import com.arellomobile.mvp.viewstate.ViewCommand;
+import com.arellomobile.mvp.viewstate.ViewCommandLog;
 
 /**
  * Date: 17.12.2015
  * Time: 11:24
+ * <p>
+ * Replaces previous command of same class, if exists, and adds incoming command to end of state. State of
+ * {@link com.arellomobile.mvp.viewstate.ViewCommands} indexes commands by class, so replacement costs constant time
  *
  * @author Yuri Shmakov
  */
@@ -17,6 +21,13 @@ public class AddToEndSingleStrategy implements StateStrategy
 	@Override
 	public <View extends MvpView> void beforeApply(List<ViewCommand<View>> currentState, ViewCommand<View> incomingCommand)
 	{
+		if (currentState instanceof ViewCommandLog)
+		{
+			((ViewCommandLog<View>) currentState).removeFirstOfClass(incomingCommand.getClass());
+			currentState.add(incomingCommand);
+			return;
+		}
+
 		Iterator<ViewCommand<View>> iterator = currentState.iterator();
 
 		while (iterator.hasNext())
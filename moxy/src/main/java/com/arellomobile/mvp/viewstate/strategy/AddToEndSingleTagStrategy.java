@@ -0,0 +1,68 @@
+package com.arellomobile.mvp.viewstate.strategy;
+
+import java.util.Iterator;
+import java.util.List;
+
+import com.arellomobile.mvp.MvpView;
+import com.arellomobile.mvp.viewstate.ViewCommand;
+import com.arellomobile.mvp.viewstate.ViewCommandLog;
+
+/**
+ * Date: 17.03.2016
+ * Time: 10:42
+ * <p>
+ * Replaces previous command with same {@link StateStrategyType#tag()}, if exists, and adds incoming command to end of
+ * state. Unlike {@link AddToEndSingleStrategy}, commands of different methods replace each other, if they have same
+ * tag, while commands with other tags stay untouched. Replacement costs constant time, because state of
+ * {@link com.arellomobile.mvp.viewstate.ViewCommands} indexes commands by tag.
+ * <p>
+ * Example: only latest of methods is retained in state
+ * <pre>
+ * &#64;StateStrategyType(value = AddToEndSingleTagStrategy.class, tag = "content")
+ * void showLoading();
+ *
+ * &#64;StateStrategyType(value = AddToEndSingleTagStrategy.class, tag = "content")
+ * void showError(String message);
+ *
+ * &#64;StateStrategyType(value = AddToEndSingleTagStrategy.class, tag = "content")
+ * void showContent(List&lt;Item&gt; items);
+ * </pre>
+ *
+ * @author Yuri Shmakov
+ */
+public class AddToEndSingleTagStrategy implements StateStrategy
+{
+	@Override
+	public <View extends MvpView> void beforeApply(List<ViewCommand<View>> currentState, ViewCommand<View> incomingCommand)
+	{
+		String tag = incomingCommand.getTag();
+
+		if (currentState instanceof ViewCommandLog)
+		{
+			((ViewCommandLog<View>) currentState).removeFirstWithTag(tag);
+			currentState.add(incomingCommand);
+			return;
+		}
+
+		Iterator<ViewCommand<View>> iterator = currentState.iterator();
+
+		while (iterator.hasNext())
+		{
+			ViewCommand<View> entry = iterator.next();
+
+			if (tag == null ? entry.getTag() == null : tag.equals(entry.getTag()))
+			{
+				iterator.remove();
+				break;
+			}
+		}
+
+		currentState.add(incomingCommand);
+	}
+
+	@Override
+	public <View extends MvpView> void afterApply(List<ViewCommand<View>> currentState, ViewCommand<View> incomingCommand)
+	{
+		// pass
+	}
+}
@@ -0,0 +1,57 @@
+package com.arellomobile.mvp.viewstate.strategy;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Date: 17.03.2016
+ * Time: 14:26
+ * <p>
+ * Process wide registry of state strategies. Each strategy class is instantiated once, and instance is shared by all
+ * view states, so strategies should keep no state between calls. Generated view states resolve strategies once per
+ * class and pass instances to commands, so dispatch of command does not look up strategy at all.
+ *
+ * @author Yuri Shmakov
+ */
+public final class StateStrategies
+{
+	private static final ConcurrentMap<Class<? extends StateStrategy>, StateStrategy> sStrategies = new ConcurrentHashMap<>();
+
+	private StateStrategies()
+	{
+	}
+
+	/**
+	 * @param strategyType class of strategy with public empty constructor
+	 * @return shared instance of strategy
+	 */
+	public static StateStrategy get(Class<? extends StateStrategy> strategyType)
+	{
+		StateStrategy stateStrategy = sStrategies.get(strategyType);
+
+		if (stateStrategy == null)
+		{
+			//noinspection TryWithIdenticalCatches
+			try
+			{
+				stateStrategy = strategyType.newInstance();
+			}
+			catch (InstantiationException e)
+			{
+				throw new IllegalArgumentException("Unable to create state strategy: " + strategyType.getName());
+			}
+			catch (IllegalAccessException e)
+			{
+				throw new IllegalArgumentException("Unable to create state strategy: " + strategyType.getName());
+			}
+
+			StateStrategy existingStrategy = sStrategies.putIfAbsent(strategyType, stateStrategy);
+			if (existingStrategy != null)
+			{
+				stateStrategy = existingStrategy;
+			}
+		}
+
+		return stateStrategy;
+	}
+}
@@ -8,6 +8,9 @@ import com.arellomobile.mvp.viewstate.ViewCommand;
 /**
  * Date: 17.12.2015
  * Time: 11:21
+ * <p>
+ * One instance of strategy is shared by all view states(see {@link StateStrategies}), so implementation should be
+ * stateless and should have public empty constructor.
  *
  * @author Yuri Shmakov
  */
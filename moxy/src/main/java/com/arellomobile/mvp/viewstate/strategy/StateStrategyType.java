@@ -17,4 +17,10 @@ public @interface StateStrategyType
 {
 	Class<? extends StateStrategy> value();
 	String tag() default "";
+
+	/**
+	 * Max count of commands of method, retained by bounded strategies(e.g. {@link AddToEndBoundedStrategy}).
+	 * Used only on methods. 0 means unbounded
+	 */
+	int capacity() default 0;
 }
@@ -51,6 +51,22 @@ public class ViewStateClassTest extends CompilerTest
 		}
 	}
 
+	@Test
+	public void viewStateCommands()
+	{
+		getThat(JavaFileObjects.forResource("presenter/ViewStateCommandsPresenter.java"), JavaFileObjects.forResource("view/ViewStateCommandsView.java"))
+				.compilesWithoutError()
+				.and().generatesSources(JavaFileObjects.forResource("view/ViewStateCommandsView$$State.java"));
+	}
+
+	@Test
+	public void viewStateConflateCommands()
+	{
+		getThat(JavaFileObjects.forResource("presenter/ConflateCommandsPresenter.java"), JavaFileObjects.forResource("view/ConflateCommandsView.java"))
+				.compilesWithoutError()
+				.and().generatesSources(JavaFileObjects.forResource("view/ConflateCommandsView$$State.java"));
+	}
+
 	@Test
 	public void viewStateForGenericView_throw()
 	{
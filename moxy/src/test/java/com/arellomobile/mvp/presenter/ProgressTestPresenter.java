@@ -0,0 +1,16 @@
+package com.arellomobile.mvp.presenter;
+
+import com.arellomobile.mvp.InjectViewState;
+import com.arellomobile.mvp.MvpPresenter;
+import com.arellomobile.mvp.view.ProgressTestView;
+
+/**
+ * Date: 18.03.2016
+ * Time: 11:30
+ *
+ * @author Yuri Shmakov
+ */
+@InjectViewState
+public class ProgressTestPresenter extends MvpPresenter<ProgressTestView>
+{
+}
@@ -0,0 +1,155 @@
+package com.arellomobile.mvp.tests;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.arellomobile.mvp.ConcurrentWeakValueHashMap;
+import com.arellomobile.mvp.WeakValueHashMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 15.03.2016
+ * Time: 17:02
+ *
+ * @author Alexander Blinov
+ */
+public class ConcurrentWeakValueHashMapTest
+{
+	@Test
+	public void checkCollectedValuesAreDrained() throws InterruptedException
+	{
+		ConcurrentWeakValueHashMap<String, Object> map = new ConcurrentWeakValueHashMap<>();
+		Object retained = new Object();
+		map.put("retained", retained);
+		map.put("collected", new Object());
+
+		for (int i = 0; i < 50 && map.size() > 1; i++)
+		{
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertEquals("Entry of collected value was not removed", 1, map.size());
+		assertNull("Collected value is still in map", map.get("collected"));
+		assertTrue("Retained value was lost", map.get("retained") == retained);
+	}
+
+	@Test
+	public void checkRemove()
+	{
+		ConcurrentWeakValueHashMap<String, Object> map = new ConcurrentWeakValueHashMap<>();
+		Object value = new Object();
+		map.put("key", value);
+
+		assertTrue("Removed value is wrong", map.remove("key") == value);
+		assertNull("Value was not removed", map.get("key"));
+	}
+
+	@Test
+	public void checkLiveViews()
+	{
+		ConcurrentWeakValueHashMap<String, Object> map = new ConcurrentWeakValueHashMap<>();
+		Object value = new Object();
+		map.put("key", value);
+
+		assertTrue("Value is missing in values view", map.values().contains(value));
+
+		map.put("another", value);
+
+		assertEquals("Values view is not backed by map", 2, map.values().size());
+		for (Map.Entry<String, Object> entry : map.entrySet())
+		{
+			assertTrue("Entry has wrong value", entry.getValue() == value);
+		}
+
+		final Map<String, Object> visited = new HashMap<>();
+		map.visitLive(new WeakValueHashMap.Visitor<String, Object>()
+		{
+			@Override
+			public void visit(String key, Object value)
+			{
+				visited.put(key, value);
+			}
+		});
+
+		assertEquals("Visitor did not visit all entries", 2, visited.size());
+	}
+
+	@Test
+	public void checkEntriesFollowMapEntryContract()
+	{
+		Object value = new Object();
+		Map<String, Object> expected = new HashMap<>();
+		expected.put("key", value);
+
+		ConcurrentWeakValueHashMap<String, Object> concurrentMap = new ConcurrentWeakValueHashMap<>();
+		concurrentMap.put("key", value);
+		WeakValueHashMap<String, Object> map = new WeakValueHashMap<>();
+		map.put("key", value);
+
+		assertEquals("Entries of concurrent map differ from entries of hash map", expected.entrySet(), concurrentMap.entrySet());
+		assertEquals("Entries of weak map differ from entries of hash map", expected.entrySet(), map.entrySet());
+		assertEquals("Hash code of concurrent map differs from hash code of hash map", expected.hashCode(), concurrentMap.hashCode());
+		assertEquals("Hash code of weak map differs from hash code of hash map", expected.hashCode(), map.hashCode());
+		assertTrue("Equal maps are not equal", concurrentMap.equals(expected) && expected.equals(concurrentMap) && map.equals(expected));
+	}
+
+	@Test
+	public void checkViewsSkipCollectedValues() throws InterruptedException
+	{
+		Object retained = new Object();
+		Object collected = new Object();
+		WeakReference<Object> collectedReference = new WeakReference<>(collected);
+
+		ConcurrentWeakValueHashMap<String, Object> concurrentMap = new ConcurrentWeakValueHashMap<>();
+		concurrentMap.put("retained", retained);
+		concurrentMap.put("collected", collected);
+		WeakValueHashMap<String, Object> map = new WeakValueHashMap<>();
+		map.put("retained", retained);
+		map.put("collected", collected);
+
+		//noinspection UnusedAssignment
+		collected = null;
+		for (int i = 0; i < 50 && collectedReference.get() != null; i++)
+		{
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		// references could be cleared, but not enqueued yet
+		checkLiveViews(concurrentMap);
+		checkLiveViews(map);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void checkKeySetIsReadOnly()
+	{
+		ConcurrentWeakValueHashMap<String, Object> map = new ConcurrentWeakValueHashMap<>();
+		map.put("key", new Object());
+
+		map.keySet().remove("key");
+	}
+
+	private static void checkLiveViews(Map<String, Object> map)
+	{
+		int entriesCount = 0;
+		for (Map.Entry<String, Object> ignored : map.entrySet())
+		{
+			entriesCount++;
+		}
+
+		assertEquals("Key set contains key of collected value", Collections.singleton("retained"), map.keySet());
+		assertEquals("Size of entries differs from count of iterated entries", entriesCount, map.entrySet().size());
+		assertEquals("Size of keys differs from count of live entries", 1, map.keySet().size());
+		assertFalse("Map contains key of collected value", map.containsKey("collected"));
+		assertTrue("Map does not contain key of retained value", map.containsKey("retained"));
+	}
+}
@@ -0,0 +1,165 @@
+package com.arellomobile.mvp.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.arellomobile.mvp.presenter.ProgressTestPresenter;
+import com.arellomobile.mvp.view.ProgressTestView;
+import com.arellomobile.mvp.viewstate.FrameSource;
+import com.arellomobile.mvp.viewstate.MvpViewState;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 16.03.2016
+ * Time: 15:20
+ * <p>
+ * Checks generated view state of {@link ProgressTestView}, where showProgress and showMessage are conflated
+ *
+ * @author Yuri Shmakov
+ */
+public class ConflateTest
+{
+	private final List<Runnable> mFrames = new ArrayList<>();
+
+	@Before
+	public void setUp()
+	{
+		MvpViewState.setFrameSource(new FrameSource()
+		{
+			@Override
+			public void postFrameCallback(Runnable callback)
+			{
+				mFrames.add(callback);
+			}
+		});
+	}
+
+	@After
+	public void tearDown()
+	{
+		MvpViewState.setFrameSource(FrameSource.IMMEDIATE);
+	}
+
+	@Test
+	public void checkOnlyLastCommandIsDelivered()
+	{
+		ProgressTestPresenter presenter = new ProgressTestPresenter();
+		ProgressTestView viewState = presenter.getViewState();
+		RecordingView view = new RecordingView();
+		presenter.attachView(view);
+
+		viewState.showProgress(1);
+		viewState.showProgress(2);
+		viewState.showProgress(3);
+
+		assertTrue("Conflated command was delivered before frame", view.mCalls.isEmpty());
+		assertEquals("Frame was requested more than once", 1, mFrames.size());
+
+		runFrames();
+
+		assertEquals("Frame delivered not last command", Arrays.asList("progress 3"), view.mCalls);
+	}
+
+	@Test
+	public void checkHistoryIsKept()
+	{
+		ProgressTestPresenter presenter = new ProgressTestPresenter();
+		ProgressTestView viewState = presenter.getViewState();
+		presenter.attachView(new RecordingView());
+
+		viewState.showMessage("first");
+		viewState.showMessage("second");
+		runFrames();
+
+		RecordingView restoredView = new RecordingView();
+		presenter.attachView(restoredView);
+
+		assertEquals("Conflation changed state of view state", Arrays.asList("message first", "message second"), restoredView.mCalls);
+	}
+
+	@Test
+	public void checkPendingCommandsAreDeliveredBeforeOthers()
+	{
+		ProgressTestPresenter presenter = new ProgressTestPresenter();
+		ProgressTestView viewState = presenter.getViewState();
+		RecordingView view = new RecordingView();
+		presenter.attachView(view);
+
+		viewState.showProgress(50);
+		viewState.hideProgress();
+
+		assertEquals("Order of commands was changed", Arrays.asList("progress 50", "hide"), view.mCalls);
+
+		runFrames();
+
+		assertEquals("Command was delivered twice", 2, view.mCalls.size());
+
+		RecordingView restoredView = new RecordingView();
+		presenter.attachView(restoredView);
+
+		assertTrue("Skipped command was saved in state", restoredView.mCalls.isEmpty());
+	}
+
+	@Test
+	public void checkPendingCommandsAreDeliveredBeforeAttach()
+	{
+		ProgressTestPresenter presenter = new ProgressTestPresenter();
+		ProgressTestView viewState = presenter.getViewState();
+		RecordingView view = new RecordingView();
+		presenter.attachView(view);
+
+		viewState.showMessage("message");
+
+		RecordingView newView = new RecordingView();
+		presenter.attachView(newView);
+
+		assertEquals("Attached view missed pending command", Arrays.asList("message message"), view.mCalls);
+		assertEquals("New view received command twice", Arrays.asList("message message"), newView.mCalls);
+
+		runFrames();
+
+		assertEquals("Command was delivered twice", 1, view.mCalls.size());
+		assertEquals("Command was delivered twice", 1, newView.mCalls.size());
+	}
+
+	private void runFrames()
+	{
+		List<Runnable> frames = new ArrayList<>(mFrames);
+		mFrames.clear();
+
+		for (Runnable frame : frames)
+		{
+			frame.run();
+		}
+	}
+
+	private static class RecordingView implements ProgressTestView
+	{
+		List<String> mCalls = new ArrayList<>();
+
+		@Override
+		public void showProgress(int progress)
+		{
+			mCalls.add("progress " + progress);
+		}
+
+		@Override
+		public void hideProgress()
+		{
+			mCalls.add("hide");
+		}
+
+		@Override
+		public void showMessage(String message)
+		{
+			mCalls.add("message " + message);
+		}
+	}
+}
@@ -0,0 +1,176 @@
+package com.arellomobile.mvp.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import com.arellomobile.mvp.presenter.MessagesTestPresenter;
+import com.arellomobile.mvp.view.MessagesTestView;
+import com.arellomobile.mvp.viewstate.MainThreadExecutor;
+import com.arellomobile.mvp.viewstate.MvpViewState;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 17.03.2016
+ * Time: 12:40
+ * <p>
+ * Checks, that generated view state of {@link MessagesTestView} applies commands from other threads at main thread
+ *
+ * @author Yuri Shmakov
+ */
+public class MainThreadExecutorTest
+{
+	private static final int THREADS_COUNT = 4;
+	private static final int COMMANDS_COUNT = 1000;
+
+	private final Thread mMainThread = Thread.currentThread();
+	private final ConcurrentLinkedQueue<Runnable> mTasks = new ConcurrentLinkedQueue<>();
+
+	@Before
+	public void setUp()
+	{
+		MvpViewState.setMainThreadExecutor(new MainThreadExecutor()
+		{
+			@Override
+			public boolean isMainThread()
+			{
+				return Thread.currentThread() == mMainThread;
+			}
+
+			@Override
+			public void execute(Runnable command)
+			{
+				mTasks.add(command);
+			}
+		});
+	}
+
+	@After
+	public void tearDown()
+	{
+		MvpViewState.setMainThreadExecutor(null);
+	}
+
+	@Test
+	public void checkCommandsAreAppliedAtMainThread() throws InterruptedException
+	{
+		MessagesTestPresenter presenter = new MessagesTestPresenter();
+		final MessagesTestView viewState = presenter.getViewState();
+		RecordingView view = new RecordingView();
+		presenter.attachView(view);
+
+		Thread thread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				viewState.showMessage("first");
+				viewState.showMessage("second");
+			}
+		});
+		thread.start();
+		thread.join();
+
+		assertTrue("Command was applied not at main thread", view.mMessages.isEmpty());
+		assertEquals("Drain was scheduled for each command", 1, mTasks.size());
+
+		runTasks();
+
+		assertEquals("Commands were applied not in order of calls", Arrays.asList("first", "second"), view.mMessages);
+		assertTrue("Command was applied not at main thread", view.mOnlyMainThread);
+
+		RecordingView restoredView = new RecordingView();
+		presenter.attachView(restoredView);
+		assertEquals("Posted commands were not saved in state", Arrays.asList("first", "second"), restoredView.mMessages);
+	}
+
+	@Test
+	public void checkManyProducers() throws InterruptedException
+	{
+		MessagesTestPresenter presenter = new MessagesTestPresenter();
+		final MessagesTestView viewState = presenter.getViewState();
+		RecordingView view = new RecordingView();
+		presenter.attachView(view);
+
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		Thread[] threads = new Thread[THREADS_COUNT];
+		for (int i = 0; i < THREADS_COUNT; i++)
+		{
+			final int threadIndex = i;
+			threads[i] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						startLatch.await();
+					}
+					catch (InterruptedException e)
+					{
+						return;
+					}
+
+					for (int j = 0; j < COMMANDS_COUNT; j++)
+					{
+						viewState.showMessage(threadIndex + ":" + j);
+					}
+				}
+			});
+			threads[i].start();
+		}
+
+		startLatch.countDown();
+
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		runTasks();
+
+		assertEquals("Commands were lost", THREADS_COUNT * COMMANDS_COUNT, view.mMessages.size());
+
+		int[] lastIndexes = new int[THREADS_COUNT];
+		Arrays.fill(lastIndexes, -1);
+		for (String message : view.mMessages)
+		{
+			String[] parts = message.split(":");
+			int threadIndex = Integer.parseInt(parts[0]);
+			int index = Integer.parseInt(parts[1]);
+
+			assertEquals("Commands of one thread were reordered", lastIndexes[threadIndex] + 1, index);
+			lastIndexes[threadIndex] = index;
+		}
+	}
+
+	private void runTasks()
+	{
+		Runnable task;
+		while ((task = mTasks.poll()) != null)
+		{
+			task.run();
+		}
+	}
+
+	private class RecordingView implements MessagesTestView
+	{
+		List<String> mMessages = new ArrayList<>();
+		boolean mOnlyMainThread = true;
+
+		@Override
+		public void showMessage(String message)
+		{
+			mOnlyMainThread &= Thread.currentThread() == mMainThread;
+			mMessages.add(message);
+		}
+	}
+}
@@ -3,6 +3,7 @@ package com.arellomobile.mvp.tests;
 import android.os.Bundle;
 
 import com.arellomobile.mvp.MvpDelegate;
+import com.arellomobile.mvp.MvpFacade;
 import com.arellomobile.mvp.view.DelegateLocalPresenterTestView;
 import com.arellomobile.mvp.view.TestView;
 
@@ -46,4 +47,20 @@ public class MvpDelegateTest
 	{
 
 	}
+
+	@Test(expected = IllegalStateException.class)
+	public void setParentScopeAfterCreateWithoutState()
+	{
+		MvpDelegate<? extends TestView> mvpDelegate = new MvpDelegate<>(new DelegateLocalPresenterTestView());
+		mvpDelegate.onCreate();
+
+		try
+		{
+			mvpDelegate.setParentScope(MvpFacade.getInstance().getPresenterStore().getRootScope());
+		}
+		finally
+		{
+			mvpDelegate.onDestroy();
+		}
+	}
 }
@@ -0,0 +1,112 @@
+package com.arellomobile.mvp.tests;
+
+import java.lang.ref.WeakReference;
+
+import com.arellomobile.mvp.CapacityPolicy;
+import com.arellomobile.mvp.MvpPresenter;
+import com.arellomobile.mvp.PresenterScope;
+import com.arellomobile.mvp.PresenterStore;
+import com.arellomobile.mvp.presenter.PresenterType;
+import com.arellomobile.mvp.tests.PresenterStoreTest.DestroyablePresenter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 14.03.2016
+ * Time: 17:20
+ *
+ * @author Alexander Blinov
+ */
+public class PresenterScopeTest
+{
+	@Test
+	public void checkCloseDestroysSubtree()
+	{
+		PresenterStore presenterStore = new PresenterStore();
+		PresenterScope flow = presenterStore.getRootScope().openChild();
+		PresenterScope screen = flow.openChild();
+		PresenterScope child = screen.openChild();
+		PresenterScope otherFlow = presenterStore.getRootScope().openChild();
+
+		DestroyablePresenter screenPresenter = create(presenterStore, screen, "screen");
+		DestroyablePresenter childPresenter = create(presenterStore, child, "child");
+		DestroyablePresenter otherPresenter = create(presenterStore, otherFlow, "other");
+
+		flow.close();
+
+		assertTrue("Scope was not closed", flow.isClosed());
+		assertTrue("Child scope was not closed", child.isClosed());
+		assertTrue("Presenter of child scope was not destroyed", screenPresenter.mDestroyed);
+		assertTrue("Presenter of nested child scope was not destroyed", childPresenter.mDestroyed);
+		assertFalse("Presenter of another scope was destroyed", otherPresenter.mDestroyed);
+		assertNull("Presenter of closed scope is still in store", presenterStore.get(PresenterType.LOCAL, "child", DestroyablePresenter.class));
+	}
+
+	@Test
+	public void checkPresenterMovedToAnotherScope()
+	{
+		PresenterStore presenterStore = new PresenterStore();
+		PresenterScope oldScreen = presenterStore.getRootScope().openChild();
+		PresenterScope newScreen = presenterStore.getRootScope().openChild();
+
+		DestroyablePresenter presenter = create(presenterStore, oldScreen, "screen");
+		MvpPresenter restoredPresenter = create(presenterStore, newScreen, "screen");
+
+		oldScreen.close();
+
+		assertTrue("Store returned presenter, different from added", restoredPresenter == presenter);
+		assertFalse("Presenter was destroyed with previous scope", presenter.mDestroyed);
+
+		newScreen.close();
+
+		assertTrue("Presenter was not destroyed with current scope", presenter.mDestroyed);
+	}
+
+	@Test
+	public void checkRemovedPresenterIsNotRetainedByScope() throws InterruptedException
+	{
+		PresenterStore presenterStore = new PresenterStore();
+		presenterStore.setGlobalCapacityPolicy(CapacityPolicy.maxCount(1));
+
+		WeakReference<DestroyablePresenter> evicted = new WeakReference<>(create(presenterStore, presenterStore.getRootScope(), PresenterType.GLOBAL, "evicted"));
+		create(presenterStore, presenterStore.getRootScope(), PresenterType.GLOBAL, "retained");
+
+		for (int i = 0; i < 50 && evicted.get() != null; i++)
+		{
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertNull("Evicted presenter is retained by root scope", evicted.get());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void checkOpenChildOfClosedScope()
+	{
+		PresenterScope scope = new PresenterStore().getRootScope().openChild();
+		scope.close();
+
+		scope.openChild();
+	}
+
+	private static DestroyablePresenter create(PresenterStore presenterStore, PresenterScope scope, String tag)
+	{
+		return create(presenterStore, scope, PresenterType.LOCAL, tag);
+	}
+
+	private static DestroyablePresenter create(PresenterStore presenterStore, PresenterScope scope, PresenterType type, String tag)
+	{
+		return presenterStore.getOrCreate(type, tag, DestroyablePresenter.class, scope, new PresenterStore.PresenterCreator<DestroyablePresenter>()
+		{
+			@Override
+			public DestroyablePresenter createPresenter()
+			{
+				return new DestroyablePresenter(1);
+			}
+		});
+	}
+}
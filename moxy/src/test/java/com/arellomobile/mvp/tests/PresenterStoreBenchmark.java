@@ -0,0 +1,85 @@
+package com.arellomobile.mvp.tests;
+
+import com.arellomobile.mvp.MvpPresenter;
+import com.arellomobile.mvp.PresenterStore;
+import com.arellomobile.mvp.presenter.InjectViewStatePresenter;
+import com.arellomobile.mvp.presenter.NoViewStatePresenter;
+import com.arellomobile.mvp.presenter.PresenterType;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 04.03.2016
+ * Time: 18:25
+ * <p>
+ * Measures lookup cost at {@link PresenterStore} with many live GLOBAL presenters, and checks that it does not grow with
+ * count of presenters. Benchmark is skipped, unless tests are started with -Dmoxy.benchmark=true
+ *
+ * @author Alexander Blinov
+ */
+public class PresenterStoreBenchmark
+{
+	private static final String BENCHMARK_PROPERTY = "moxy.benchmark";
+	private static final int SMALL_PRESENTERS_COUNT = 1000;
+	private static final int PRESENTERS_COUNT = 20000;
+	private static final int WARM_UP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 20;
+	// allowance for cache misses of bigger store
+	private static final int MAX_SLOWDOWN = 4;
+
+	@Test
+	public void lookupGlobalPresenters()
+	{
+		Assume.assumeTrue(Boolean.getBoolean(BENCHMARK_PROPERTY));
+
+		long smallStoreCost = measureLookup(SMALL_PRESENTERS_COUNT);
+		long largeStoreCost = measureLookup(PRESENTERS_COUNT);
+
+		assertTrue("Lookup cost grows with count of presenters: " + smallStoreCost + " ns at " + SMALL_PRESENTERS_COUNT + " presenters, " + largeStoreCost + " ns at " + PRESENTERS_COUNT + " presenters", largeStoreCost <= Math.max(smallStoreCost, 1) * MAX_SLOWDOWN);
+	}
+
+	/**
+	 * @return nanoseconds per lookup
+	 */
+	private static long measureLookup(int presentersCount)
+	{
+		PresenterStore presenterStore = new PresenterStore();
+		String[] tags = new String[presentersCount];
+
+		for (int i = 0; i < presentersCount; i++)
+		{
+			tags[i] = "com.arellomobile.mvp.sample.SampleActivity$MvpDelegate@" + Integer.toHexString(i) + "$mPresenter";
+
+			// two presenter classes, so lookups could not be resolved by tag only
+			MvpPresenter<?> presenter = i % 2 == 0 ? new NoViewStatePresenter() : new InjectViewStatePresenter();
+			presenterStore.add(PresenterType.GLOBAL, tags[i], presenter);
+		}
+
+		for (int i = 0; i < WARM_UP_ROUNDS; i++)
+		{
+			lookupAll(presenterStore, tags);
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < MEASURED_ROUNDS; i++)
+		{
+			lookupAll(presenterStore, tags);
+		}
+		long duration = System.nanoTime() - start;
+
+		return duration / ((long) MEASURED_ROUNDS * presentersCount);
+	}
+
+	private static void lookupAll(PresenterStore presenterStore, String[] tags)
+	{
+		for (int i = 0; i < tags.length; i++)
+		{
+			Class<? extends MvpPresenter<?>> clazz = i % 2 == 0 ? NoViewStatePresenter.class : InjectViewStatePresenter.class;
+
+			assertTrue("Presenter not found", presenterStore.get(PresenterType.GLOBAL, tags[i], clazz) != null);
+		}
+	}
+}
@@ -0,0 +1,458 @@
+package com.arellomobile.mvp.tests;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.arellomobile.mvp.CapacityPolicy;
+import com.arellomobile.mvp.Clock;
+import com.arellomobile.mvp.MvpPresenter;
+import com.arellomobile.mvp.MvpView;
+import com.arellomobile.mvp.PresenterStore;
+import com.arellomobile.mvp.presenter.NoViewStatePresenter;
+import com.arellomobile.mvp.presenter.PresenterType;
+import com.arellomobile.mvp.viewstate.MvpViewState;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 04.03.2016
+ * Time: 15:12
+ *
+ * @author Alexander Blinov
+ */
+public class PresenterStoreTest
+{
+	private static final int THREADS_COUNT = 8;
+
+	@Test
+	public void checkGetOrCreateReturnsStoredPresenter()
+	{
+		PresenterStore presenterStore = new PresenterStore();
+		NoViewStatePresenter presenter = new NoViewStatePresenter();
+		presenterStore.add(PresenterType.GLOBAL, "tag", presenter);
+
+		MvpPresenter<?> storedPresenter = presenterStore.getOrCreate(PresenterType.GLOBAL, "tag", NoViewStatePresenter.class, new PresenterStore.PresenterCreator<MvpPresenter<?>>()
+		{
+			@Override
+			public MvpPresenter<?> createPresenter()
+			{
+				throw new IllegalStateException("presenter should not be created");
+			}
+		});
+
+		assertTrue("Store returned presenter, different from added", storedPresenter == presenter);
+	}
+
+	@Test
+	public void checkGetOrCreateIsAtomic() throws InterruptedException
+	{
+		final PresenterStore presenterStore = new PresenterStore();
+		final AtomicInteger createdCount = new AtomicInteger();
+		final MvpPresenter<?>[] presenters = new MvpPresenter<?>[THREADS_COUNT];
+		final CountDownLatch startLatch = new CountDownLatch(1);
+
+		Thread[] threads = new Thread[THREADS_COUNT];
+		for (int i = 0; i < THREADS_COUNT; i++)
+		{
+			final int index = i;
+			threads[i] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						startLatch.await();
+					}
+					catch (InterruptedException e)
+					{
+						return;
+					}
+
+					presenters[index] = presenterStore.getOrCreate(PresenterType.GLOBAL, "tag", NoViewStatePresenter.class, new PresenterStore.PresenterCreator<MvpPresenter<?>>()
+					{
+						@Override
+						public MvpPresenter<?> createPresenter()
+						{
+							createdCount.incrementAndGet();
+							return new NoViewStatePresenter();
+						}
+					});
+				}
+			});
+			threads[i].start();
+		}
+
+		startLatch.countDown();
+
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		assertEquals("Presenter was created more than once", 1, createdCount.get());
+		for (MvpPresenter<?> presenter : presenters)
+		{
+			assertTrue("Threads received different presenters", presenter == presenters[0]);
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void checkAddSameTagTwice()
+	{
+		PresenterStore presenterStore = new PresenterStore();
+
+		presenterStore.add(PresenterType.GLOBAL, "tag", new NoViewStatePresenter());
+		presenterStore.add(PresenterType.GLOBAL, "tag", new NoViewStatePresenter());
+	}
+
+	@Test
+	public void checkRemove()
+	{
+		PresenterStore presenterStore = new PresenterStore();
+		presenterStore.add(PresenterType.WEAK, "tag", new NoViewStatePresenter());
+
+		presenterStore.remove(PresenterType.WEAK, "tag", NoViewStatePresenter.class);
+
+		assertNull("Presenter was not removed", presenterStore.get(PresenterType.WEAK, "tag", NoViewStatePresenter.class));
+	}
+
+	@Test
+	public void checkCountCapacityEvictsLeastRecentlyUsed()
+	{
+		PresenterStore presenterStore = new PresenterStore();
+		presenterStore.setGlobalCapacityPolicy(CapacityPolicy.maxCount(2));
+
+		DestroyablePresenter first = new DestroyablePresenter(1);
+		DestroyablePresenter second = new DestroyablePresenter(1);
+		presenterStore.add(PresenterType.GLOBAL, "first", first);
+		presenterStore.add(PresenterType.GLOBAL, "second", second);
+
+		// touch first, so second becomes least recently used
+		presenterStore.get(PresenterType.GLOBAL, "first", DestroyablePresenter.class);
+
+		presenterStore.add(PresenterType.GLOBAL, "third", new DestroyablePresenter(1));
+
+		assertTrue("Least recently used presenter was not destroyed", second.mDestroyed);
+		assertFalse("Recently used presenter was destroyed", first.mDestroyed);
+		assertNull("Evicted presenter is still in store", presenterStore.get(PresenterType.GLOBAL, "second", DestroyablePresenter.class));
+	}
+
+	@Test
+	public void checkCapacitySkipsPresentersWithViews()
+	{
+		PresenterStore presenterStore = new PresenterStore();
+		presenterStore.setGlobalCapacityPolicy(CapacityPolicy.maxCount(1));
+
+		DestroyablePresenter attached = new DestroyablePresenter(1);
+		MvpView view = new MvpView()
+		{
+		};
+		attached.attachView(view);
+		presenterStore.add(PresenterType.GLOBAL, "attached", attached);
+
+		DestroyablePresenter detached = new DestroyablePresenter(1);
+		presenterStore.add(PresenterType.GLOBAL, "detached", detached);
+		presenterStore.add(PresenterType.GLOBAL, "new", new DestroyablePresenter(1));
+
+		assertFalse("Presenter with attached view was destroyed", attached.mDestroyed);
+		assertTrue("Presenter without views was not destroyed", detached.mDestroyed);
+	}
+
+	@Test
+	public void checkCapacityEvictsNextPresenterIfViewIsAttaching() throws InterruptedException
+	{
+		PresenterStore presenterStore = new PresenterStore();
+		presenterStore.setGlobalCapacityPolicy(CapacityPolicy.maxCount(2));
+
+		BlockingViewState viewState = new BlockingViewState();
+		final DestroyablePresenter attaching = new DestroyablePresenter(1);
+		attaching.setViewState(viewState);
+		presenterStore.add(PresenterType.GLOBAL, "attaching", attaching);
+		DestroyablePresenter detached = new DestroyablePresenter(1);
+		presenterStore.add(PresenterType.GLOBAL, "detached", detached);
+
+		Thread thread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				attaching.attachView(new MvpView()
+				{
+				});
+			}
+		});
+		thread.start();
+		viewState.mAttachingLatch.await();
+
+		// least recently used presenter could not be evicted, so next one should be
+		presenterStore.add(PresenterType.GLOBAL, "new", new DestroyablePresenter(1));
+
+		viewState.mAttachLatch.countDown();
+		thread.join();
+
+		assertFalse("Presenter was destroyed while view was attaching", attaching.mDestroyed);
+		assertTrue("Capacity was exceeded, when least recently used presenter could not be evicted", detached.mDestroyed);
+	}
+
+	@Test
+	public void checkWeightCapacity()
+	{
+		PresenterStore presenterStore = new PresenterStore();
+		presenterStore.setGlobalCapacityPolicy(CapacityPolicy.maxWeight(10));
+
+		DestroyablePresenter light = new DestroyablePresenter(2);
+		DestroyablePresenter heavy = new DestroyablePresenter(7);
+		presenterStore.add(PresenterType.GLOBAL, "light", light);
+		presenterStore.add(PresenterType.GLOBAL, "heavy", heavy);
+		assertFalse("Presenter destroyed while capacity is not exceeded", light.mDestroyed);
+
+		presenterStore.add(PresenterType.GLOBAL, "new", new DestroyablePresenter(3));
+
+		assertTrue("Presenter was not destroyed when weight exceeded", light.mDestroyed);
+		assertFalse("Presenter was destroyed after weight fits capacity", heavy.mDestroyed);
+	}
+
+	@Test
+	public void checkIdleTimeout()
+	{
+		final long[] now = {0};
+		PresenterStore presenterStore = new PresenterStore();
+		presenterStore.setClock(new Clock()
+		{
+			@Override
+			public long uptimeMillis()
+			{
+				return now[0];
+			}
+		});
+		presenterStore.setIdleTimeout(1000);
+
+		DestroyablePresenter idle = new DestroyablePresenter(1);
+		DestroyablePresenter attached = new DestroyablePresenter(1);
+		attached.attachView(new MvpView()
+		{
+		});
+		presenterStore.add(PresenterType.GLOBAL, "idle", idle);
+		presenterStore.add(PresenterType.WEAK, "attached", attached);
+
+		now[0] = 999;
+		presenterStore.sweepIdlePresenters();
+		assertFalse("Presenter expired before timeout", idle.mDestroyed);
+
+		now[0] = 1000;
+		presenterStore.sweepIdlePresenters();
+		assertTrue("Idle presenter was not destroyed", idle.mDestroyed);
+		assertFalse("Presenter with attached view was destroyed", attached.mDestroyed);
+		assertNull("Expired presenter is still in store", presenterStore.get(PresenterType.GLOBAL, "idle", DestroyablePresenter.class));
+	}
+
+	@Test
+	public void checkUsedPresenterIsNotExpired()
+	{
+		final long[] now = {0};
+		PresenterStore presenterStore = new PresenterStore();
+		presenterStore.setClock(new Clock()
+		{
+			@Override
+			public long uptimeMillis()
+			{
+				return now[0];
+			}
+		});
+		presenterStore.setIdleTimeout(1000);
+
+		DestroyablePresenter presenter = new DestroyablePresenter(1);
+		presenterStore.add(PresenterType.GLOBAL, "tag", presenter);
+
+		// presenter is expired, but was not swept yet
+		now[0] = 2000;
+		assertTrue("Stored presenter was not found", presenterStore.get(PresenterType.GLOBAL, "tag", DestroyablePresenter.class) == presenter);
+
+		DestroyablePresenter storedPresenter = presenterStore.getOrCreate(PresenterType.GLOBAL, "tag", DestroyablePresenter.class, new PresenterStore.PresenterCreator<DestroyablePresenter>()
+		{
+			@Override
+			public DestroyablePresenter createPresenter()
+			{
+				return new DestroyablePresenter(1);
+			}
+		});
+		assertTrue("Returned presenter was replaced", storedPresenter == presenter);
+		assertFalse("Returned presenter was destroyed", presenter.mDestroyed);
+
+		// idle time is counted again from sweep, which sees presenter unused
+		now[0] = 2500;
+		presenterStore.sweepIdlePresenters();
+		assertFalse("Used presenter expired before timeout", presenter.mDestroyed);
+
+		now[0] = 3499;
+		presenterStore.sweepIdlePresenters();
+		assertFalse("Used presenter expired before timeout", presenter.mDestroyed);
+
+		now[0] = 3500;
+		presenterStore.sweepIdlePresenters();
+		assertTrue("Idle presenter was not destroyed after use", presenter.mDestroyed);
+	}
+
+	@Test
+	public void checkPresenterIsNotExpiredWhileViewIsAttaching() throws InterruptedException
+	{
+		final long[] now = {0};
+		PresenterStore presenterStore = new PresenterStore();
+		presenterStore.setClock(new Clock()
+		{
+			@Override
+			public long uptimeMillis()
+			{
+				return now[0];
+			}
+		});
+		presenterStore.setIdleTimeout(1000);
+
+		BlockingViewState viewState = new BlockingViewState();
+		final DestroyablePresenter presenter = new DestroyablePresenter(1);
+		presenter.setViewState(viewState);
+		presenterStore.add(PresenterType.GLOBAL, "tag", presenter);
+
+		Thread thread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				presenter.attachView(new MvpView()
+				{
+				});
+			}
+		});
+		thread.start();
+		viewState.mAttachingLatch.await();
+
+		// view is not added yet, but attach is in progress
+		now[0] = 1000;
+		presenterStore.sweepIdlePresenters();
+
+		viewState.mAttachLatch.countDown();
+		thread.join();
+
+		assertFalse("Presenter was destroyed while view was attaching", presenter.mDestroyed);
+		assertTrue("Presenter was removed while view was attaching", presenterStore.get(PresenterType.GLOBAL, "tag", DestroyablePresenter.class) == presenter);
+	}
+
+	@Test
+	public void checkIdleTimeoutIsAmortized()
+	{
+		final long[] now = {0};
+		PresenterStore presenterStore = new PresenterStore();
+		presenterStore.setClock(new Clock()
+		{
+			@Override
+			public long uptimeMillis()
+			{
+				return now[0];
+			}
+		});
+		presenterStore.setIdleTimeout(10);
+
+		DestroyablePresenter[] presenters = new DestroyablePresenter[10];
+		for (int i = 0; i < presenters.length; i++)
+		{
+			presenters[i] = new DestroyablePresenter(1);
+			presenterStore.add(PresenterType.GLOBAL, "tag" + i, presenters[i]);
+		}
+
+		now[0] = 10;
+		// each request to store checks few presenters
+		for (int i = 0; i < presenters.length; i++)
+		{
+			presenterStore.get(PresenterType.GLOBAL, "unknown", DestroyablePresenter.class);
+		}
+
+		for (DestroyablePresenter presenter : presenters)
+		{
+			assertTrue("Idle presenter was not destroyed by requests to store", presenter.mDestroyed);
+		}
+	}
+
+	@Test
+	public void checkTrimSoftPresenters()
+	{
+		PresenterStore presenterStore = new PresenterStore();
+
+		DestroyablePresenter[] presenters = new DestroyablePresenter[4];
+		for (int i = 0; i < presenters.length; i++)
+		{
+			presenters[i] = new DestroyablePresenter(1);
+			presenterStore.add(PresenterType.SOFT, "tag" + i, presenters[i]);
+		}
+
+		// touch first, so second and third become least recently used
+		presenterStore.get(PresenterType.SOFT, "tag0", DestroyablePresenter.class);
+
+		presenterStore.trimSoftPresenters(0.5f);
+
+		assertFalse("Recently used presenter was destroyed", presenters[0].mDestroyed);
+		assertTrue("Least recently used presenter was not destroyed", presenters[1].mDestroyed);
+		assertTrue("Least recently used presenter was not destroyed", presenters[2].mDestroyed);
+		assertFalse("Recently used presenter was destroyed", presenters[3].mDestroyed);
+		assertTrue("Retained presenter was not found", presenterStore.get(PresenterType.SOFT, "tag3", DestroyablePresenter.class) == presenters[3]);
+		assertNull("Dropped presenter is still in store", presenterStore.get(PresenterType.SOFT, "tag1", DestroyablePresenter.class));
+	}
+
+	/**
+	 * Blocks attach of view, until test releases it
+	 */
+	private static class BlockingViewState extends MvpViewState<MvpView> implements MvpView
+	{
+		final CountDownLatch mAttachingLatch = new CountDownLatch(1);
+		final CountDownLatch mAttachLatch = new CountDownLatch(1);
+
+		@Override
+		public void attachView(MvpView view)
+		{
+			mAttachingLatch.countDown();
+			try
+			{
+				mAttachLatch.await();
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+
+			super.attachView(view);
+		}
+
+		@Override
+		protected void restoreState(MvpView view)
+		{
+		}
+	}
+
+	public static class DestroyablePresenter extends MvpPresenter<MvpView>
+	{
+		private final long mWeight;
+		boolean mDestroyed;
+
+		public DestroyablePresenter(long weight)
+		{
+			mWeight = weight;
+		}
+
+		@Override
+		public long getPresenterWeight()
+		{
+			return mWeight;
+		}
+
+		@Override
+		public void onDestroy()
+		{
+			mDestroyed = true;
+		}
+	}
+}
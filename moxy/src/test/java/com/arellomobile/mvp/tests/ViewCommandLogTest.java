@@ -0,0 +1,229 @@
+package com.arellomobile.mvp.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+
+import com.arellomobile.mvp.MvpView;
+import com.arellomobile.mvp.viewstate.ViewCommand;
+import com.arellomobile.mvp.viewstate.ViewCommandLog;
+import com.arellomobile.mvp.viewstate.strategy.AddToEndBoundedStrategy;
+import com.arellomobile.mvp.viewstate.strategy.AddToEndSingleStrategy;
+import com.arellomobile.mvp.viewstate.strategy.AddToEndSingleTagStrategy;
+import com.arellomobile.mvp.viewstate.strategy.AddToEndStrategy;
+import com.arellomobile.mvp.viewstate.strategy.StateStrategy;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Date: 16.03.2016
+ * Time: 12:31
+ *
+ * @author Yuri Shmakov
+ */
+public class ViewCommandLogTest
+{
+	@Test
+	public void checkAddToEndSingleKeepsOrder()
+	{
+		StateStrategy addToEnd = new AddToEndStrategy();
+		StateStrategy addToEndSingle = new AddToEndSingleStrategy();
+		ViewCommandLog<MvpView> log = new ViewCommandLog<>();
+		List<ViewCommand<MvpView>> list = new ArrayList<>();
+
+		ViewCommand<MvpView> first = new FirstCommand();
+		ViewCommand<MvpView> message = new MessageCommand();
+		ViewCommand<MvpView> second = new SecondCommand();
+		ViewCommand<MvpView> newFirst = new FirstCommand();
+
+		for (List<ViewCommand<MvpView>> state : Arrays.asList(log, list))
+		{
+			addToEndSingle.beforeApply(state, first);
+			addToEnd.beforeApply(state, message);
+			addToEndSingle.beforeApply(state, second);
+			addToEnd.beforeApply(state, message);
+			addToEndSingle.beforeApply(state, newFirst);
+		}
+
+		assertEquals("Indexed state differs from list", list, log);
+		assertEquals("Wrong state", Arrays.asList(message, second, message, newFirst), log);
+		assertEquals("Wrong count of commands", 2, log.countOfClass(MessageCommand.class));
+	}
+
+	@Test
+	public void checkIteratorKeepsIndex()
+	{
+		ViewCommandLog<MvpView> log = new ViewCommandLog<>();
+		ViewCommand<MvpView> first = new FirstCommand();
+		ViewCommand<MvpView> second = new SecondCommand();
+		ViewCommand<MvpView> newFirst = new FirstCommand();
+		log.add(first);
+		log.add(second);
+
+		ListIterator<ViewCommand<MvpView>> iterator = log.listIterator();
+		iterator.next();
+		iterator.add(newFirst);
+
+		assertEquals("Wrong state", Arrays.asList(first, newFirst, second), log);
+
+		log.removeFirstOfClass(FirstCommand.class);
+
+		assertEquals("Wrong command removed", Arrays.asList(newFirst, second), log);
+	}
+
+	@Test
+	public void checkAddToEndBoundedDropsOldest()
+	{
+		StateStrategy bounded = new AddToEndBoundedStrategy();
+		StateStrategy addToEndSingle = new AddToEndSingleStrategy();
+		ViewCommandLog<MvpView> log = new ViewCommandLog<>();
+		List<ViewCommand<MvpView>> list = new ArrayList<>();
+
+		ViewCommand<MvpView>[] messages = new ViewCommand[4];
+		for (int i = 0; i < messages.length; i++)
+		{
+			messages[i] = new BoundedCommand();
+		}
+		ViewCommand<MvpView> first = new FirstCommand();
+
+		for (List<ViewCommand<MvpView>> state : Arrays.asList(log, list))
+		{
+			bounded.beforeApply(state, messages[0]);
+			addToEndSingle.beforeApply(state, first);
+			bounded.beforeApply(state, messages[1]);
+			bounded.beforeApply(state, messages[2]);
+			bounded.beforeApply(state, messages[3]);
+		}
+
+		assertEquals("Indexed state differs from list", list, log);
+		assertEquals("Wrong state", Arrays.asList(first, messages[2], messages[3]), log);
+	}
+
+	@Test
+	public void checkAddToEndSingleTagReplacesOtherMethods()
+	{
+		StateStrategy addToEnd = new AddToEndStrategy();
+		StateStrategy singleTag = new AddToEndSingleTagStrategy();
+		ViewCommandLog<MvpView> log = new ViewCommandLog<>();
+		List<ViewCommand<MvpView>> list = new ArrayList<>();
+
+		ViewCommand<MvpView> loading = new TaggedCommand("content");
+		ViewCommand<MvpView> message = new MessageCommand();
+		ViewCommand<MvpView> title = new TaggedCommand("title");
+		ViewCommand<MvpView> error = new TaggedCommand("content");
+
+		for (List<ViewCommand<MvpView>> state : Arrays.asList(log, list))
+		{
+			singleTag.beforeApply(state, loading);
+			addToEnd.beforeApply(state, message);
+			singleTag.beforeApply(state, title);
+			singleTag.beforeApply(state, error);
+		}
+
+		assertEquals("Indexed state differs from list", list, log);
+		assertEquals("Wrong state", Arrays.asList(message, title, error), log);
+	}
+
+	@Test
+	public void checkReplayWalksSnapshot()
+	{
+		final ViewCommandLog<MvpView> log = new ViewCommandLog<>();
+		final ViewCommand<MvpView> first = new FirstCommand();
+		final ViewCommand<MvpView> second = new SecondCommand();
+		final ViewCommand<MvpView> message = new MessageCommand();
+		log.add(first);
+		log.add(second);
+		log.add(message);
+
+		final List<ViewCommand<MvpView>> replayed = new ArrayList<>();
+		log.replay(new ViewCommandLog.Visitor<MvpView>()
+		{
+			@Override
+			public void visit(ViewCommand<MvpView> command)
+			{
+				replayed.add(command);
+
+				if (command == first)
+				{
+					// changes of log are not visible for current replay
+					log.removeFirstOfClass(MessageCommand.class);
+					log.add(new MessageCommand());
+					log.remove(second);
+				}
+			}
+		});
+
+		assertEquals("Replay did not walk snapshot", Arrays.asList(first, second, message), replayed);
+		assertEquals("Wrong state after replay", 2, log.size());
+		assertEquals("Retained command was lost", 0, log.indexOf(first));
+		assertEquals("Removed command is still in log", -1, log.indexOf(second));
+	}
+
+	private static class FirstCommand extends ViewCommand<MvpView>
+	{
+		FirstCommand()
+		{
+			super("first", AddToEndSingleStrategy.class);
+		}
+
+		@Override
+		public void apply(MvpView view)
+		{
+		}
+	}
+
+	private static class SecondCommand extends ViewCommand<MvpView>
+	{
+		SecondCommand()
+		{
+			super("second", AddToEndSingleStrategy.class);
+		}
+
+		@Override
+		public void apply(MvpView view)
+		{
+		}
+	}
+
+	private static class BoundedCommand extends ViewCommand<MvpView>
+	{
+		BoundedCommand()
+		{
+			super("bounded", AddToEndBoundedStrategy.class, 2);
+		}
+
+		@Override
+		public void apply(MvpView view)
+		{
+		}
+	}
+
+	private static class TaggedCommand extends ViewCommand<MvpView>
+	{
+		TaggedCommand(String tag)
+		{
+			super(tag, AddToEndSingleTagStrategy.class);
+		}
+
+		@Override
+		public void apply(MvpView view)
+		{
+		}
+	}
+
+	private static class MessageCommand extends ViewCommand<MvpView>
+	{
+		MessageCommand()
+		{
+			super("message", AddToEndStrategy.class);
+		}
+
+		@Override
+		public void apply(MvpView view)
+		{
+		}
+	}
+}
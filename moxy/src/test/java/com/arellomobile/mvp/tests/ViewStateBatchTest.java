@@ -0,0 +1,120 @@
+package com.arellomobile.mvp.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.arellomobile.mvp.presenter.WidgetsTestPresenter;
+import com.arellomobile.mvp.view.WidgetsTestView;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 16.03.2016
+ * Time: 17:45
+ * <p>
+ * Checks batches of generated view state of {@link WidgetsTestView}
+ *
+ * @author Yuri Shmakov
+ */
+public class ViewStateBatchTest
+{
+	@Test
+	public void checkBatchIsDeliveredOnCommit()
+	{
+		WidgetsTestPresenter presenter = new WidgetsTestPresenter();
+		RecordingView view = new RecordingView();
+		presenter.attachView(view);
+
+		presenter.beginViewStateBatch();
+		presenter.getViewState().showTitle("title");
+		presenter.getViewState().showCount(1);
+
+		assertTrue("Command of batch was delivered before commit", view.mCalls.isEmpty());
+
+		presenter.commitViewStateBatch();
+
+		assertEquals("Batch was not delivered in order of calls", Arrays.asList("title title", "count 1"), view.mCalls);
+	}
+
+	@Test
+	public void checkNestedBatch()
+	{
+		WidgetsTestPresenter presenter = new WidgetsTestPresenter();
+		RecordingView view = new RecordingView();
+		presenter.attachView(view);
+
+		presenter.beginViewStateBatch();
+		presenter.beginViewStateBatch();
+		presenter.getViewState().showTitle("title");
+		presenter.commitViewStateBatch();
+
+		assertTrue("Inner batch was delivered before outer commit", view.mCalls.isEmpty());
+
+		presenter.commitViewStateBatch();
+
+		assertEquals("Nested batch was not delivered", Arrays.asList("title title"), view.mCalls);
+	}
+
+	@Test
+	public void checkBatchIsProcessedByStrategies()
+	{
+		WidgetsTestPresenter presenter = new WidgetsTestPresenter();
+		presenter.attachView(new RecordingView());
+
+		presenter.beginViewStateBatch();
+		presenter.getViewState().showCount(1);
+		presenter.getViewState().showTitle("title");
+		presenter.getViewState().showCount(2);
+		presenter.commitViewStateBatch();
+
+		RecordingView restoredView = new RecordingView();
+		presenter.attachView(restoredView);
+
+		assertEquals("State after batch differs from state after same calls", Arrays.asList("title title", "count 2"), restoredView.mCalls);
+	}
+
+	@Test
+	public void checkViewAttachedDuringBatch()
+	{
+		WidgetsTestPresenter presenter = new WidgetsTestPresenter();
+
+		presenter.beginViewStateBatch();
+		presenter.getViewState().showTitle("title");
+
+		RecordingView view = new RecordingView();
+		presenter.attachView(view);
+
+		assertTrue("View received uncommitted command", view.mCalls.isEmpty());
+
+		presenter.commitViewStateBatch();
+
+		assertEquals("View attached during batch missed it", Arrays.asList("title title"), view.mCalls);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void checkCommitWithoutBegin()
+	{
+		new WidgetsTestPresenter().commitViewStateBatch();
+	}
+
+	private static class RecordingView implements WidgetsTestView
+	{
+		List<String> mCalls = new ArrayList<>();
+
+		@Override
+		public void showTitle(String title)
+		{
+			mCalls.add("title " + title);
+		}
+
+		@Override
+		public void showCount(int count)
+		{
+			mCalls.add("count " + count);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.arellomobile.mvp.tests;
+
+import com.arellomobile.mvp.WeakIdentitySet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Date: 15.03.2016
+ * Time: 12:40
+ *
+ * @author Alexander Blinov
+ */
+public class WeakIdentitySetTest
+{
+	@Test
+	public void checkElementsAreComparedByIdentity()
+	{
+		WeakIdentitySet<Object> set = new WeakIdentitySet<>();
+		EqualView first = new EqualView();
+		EqualView second = new EqualView();
+
+		assertTrue("Element was not added", set.add(first));
+		assertTrue("Equal, but different element was not added", set.add(second));
+		assertFalse("Same element was added twice", set.add(first));
+		assertEquals("Wrong size", 2, set.size());
+
+		assertTrue("Element was not removed", set.remove(first));
+		assertFalse("Removed element is still in set", set.contains(first));
+		assertTrue("Another equal element was removed", set.contains(second));
+	}
+
+	@Test
+	public void checkRemoveWhileIterating()
+	{
+		WeakIdentitySet<Object> set = new WeakIdentitySet<>();
+		Object first = new Object();
+		Object second = new Object();
+		set.add(first);
+		set.add(second);
+
+		int count = 0;
+		for (Object element : set)
+		{
+			set.remove(first);
+			set.remove(second);
+			count++;
+		}
+
+		assertEquals("Iterator did not walk over snapshot", 2, count);
+		assertTrue("Set is not empty", set.isEmpty());
+	}
+
+	private static class EqualView
+	{
+		@Override
+		public boolean equals(Object o)
+		{
+			return o instanceof EqualView;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 0;
+		}
+	}
+}
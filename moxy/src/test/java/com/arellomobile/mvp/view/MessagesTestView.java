@@ -0,0 +1,16 @@
+package com.arellomobile.mvp.view;
+
+import com.arellomobile.mvp.MvpView;
+
+/**
+ * Date: 18.03.2016
+ * Time: 11:26
+ * <p>
+ * View for MainThreadExecutorTest
+ *
+ * @author Yuri Shmakov
+ */
+public interface MessagesTestView extends MvpView
+{
+	void showMessage(String message);
+}
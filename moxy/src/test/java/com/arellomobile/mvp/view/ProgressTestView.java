@@ -0,0 +1,27 @@
+package com.arellomobile.mvp.view;
+
+import com.arellomobile.mvp.MvpView;
+import com.arellomobile.mvp.viewstate.Conflate;
+import com.arellomobile.mvp.viewstate.strategy.SkipStrategy;
+import com.arellomobile.mvp.viewstate.strategy.StateStrategyType;
+
+/**
+ * Date: 18.03.2016
+ * Time: 11:20
+ * <p>
+ * View with conflated commands for ConflateTest
+ *
+ * @author Yuri Shmakov
+ */
+public interface ProgressTestView extends MvpView
+{
+	@Conflate
+	@StateStrategyType(SkipStrategy.class)
+	void showProgress(int progress);
+
+	@StateStrategyType(SkipStrategy.class)
+	void hideProgress();
+
+	@Conflate
+	void showMessage(String message);
+}
@@ -0,0 +1,21 @@
+package com.arellomobile.mvp.view;
+
+import com.arellomobile.mvp.MvpView;
+import com.arellomobile.mvp.viewstate.strategy.AddToEndSingleStrategy;
+import com.arellomobile.mvp.viewstate.strategy.StateStrategyType;
+
+/**
+ * Date: 18.03.2016
+ * Time: 11:24
+ * <p>
+ * View for ViewStateBatchTest
+ *
+ * @author Yuri Shmakov
+ */
+@StateStrategyType(AddToEndSingleStrategy.class)
+public interface WidgetsTestView extends MvpView
+{
+	void showTitle(String title);
+
+	void showCount(int count);
+}
@@ -0,0 +1,17 @@
+package presenter;
+
+import com.arellomobile.mvp.InjectViewState;
+import com.arellomobile.mvp.MvpPresenter;
+
+import view.ConflateCommandsView;
+
+/**
+ * Date: 18.03.2016
+ * Time: 12:20
+ *
+ * @author Yuri Shmakov
+ */
+@InjectViewState
+public class ConflateCommandsPresenter extends MvpPresenter<ConflateCommandsView>
+{
+}
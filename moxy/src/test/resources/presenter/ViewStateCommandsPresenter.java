@@ -0,0 +1,17 @@
+package presenter;
+
+import com.arellomobile.mvp.InjectViewState;
+import com.arellomobile.mvp.MvpPresenter;
+
+import view.ViewStateCommandsView;
+
+/**
+ * Date: 18.03.2016
+ * Time: 12:20
+ *
+ * @author Yuri Shmakov
+ */
+@InjectViewState
+public class ViewStateCommandsPresenter extends MvpPresenter<ViewStateCommandsView>
+{
+}
@@ -0,0 +1,160 @@
+package view;
+
+import com.arellomobile.mvp.viewstate.MvpViewState;
+import com.arellomobile.mvp.viewstate.ViewCommand;
+import com.arellomobile.mvp.viewstate.strategy.AddToEndSingleStrategy;
+import com.arellomobile.mvp.viewstate.strategy.AddToEndStrategy;
+import com.arellomobile.mvp.viewstate.strategy.StateStrategies;
+import com.arellomobile.mvp.viewstate.strategy.StateStrategy;
+
+public class ConflateCommandsView$$State extends MvpViewState<ConflateCommandsView> implements ConflateCommandsView
+{
+	private static final StateStrategy SKIP_STRATEGY = StateStrategies.get(com.arellomobile.mvp.viewstate.strategy.SkipStrategy.class);
+	private static final StateStrategy ADD_TO_END_STRATEGY = StateStrategies.get(com.arellomobile.mvp.viewstate.strategy.AddToEndStrategy.class);
+
+	@Override
+	public void restoreState(ConflateCommandsView view)
+	{
+		if (mViewCommands.isEmpty())
+		{
+			return;
+		}
+
+		mViewCommands.reapply(view);
+	}
+
+	@Override
+	public  void showProgress(int progress)
+	{
+		if (!isMainThread())
+		{
+			postToMainThread(new ShowProgressCommand(progress));
+			return;
+		}
+
+		ShowProgressCommand command = new ShowProgressCommand(progress);
+
+		if (isInBatch())
+		{
+			addToBatch(command);
+			return;
+		}
+
+		mViewCommands.beforeApply(command);
+
+		if (mViews == null || mViews.isEmpty())
+		{
+			return;
+		}
+
+		conflate(command);
+
+		mViewCommands.afterApply(command);
+	}
+
+	@Override
+	public  void hideProgress()
+	{
+		if (!isMainThread())
+		{
+			postToMainThread(new HideProgressCommand());
+			return;
+		}
+
+		if (isInBatch())
+		{
+			addToBatch(new HideProgressCommand());
+			return;
+		}
+
+		if (mViews == null || mViews.isEmpty())
+		{
+			return;
+		}
+
+		flushConflated();
+
+		for(ConflateCommandsView view : mViews)
+		{
+			view.hideProgress();
+		}
+	}
+
+	@Override
+	public  void showMessage(java.lang.String message)
+	{
+		if (!isMainThread())
+		{
+			postToMainThread(new ShowMessageCommand(message));
+			return;
+		}
+
+		ShowMessageCommand command = new ShowMessageCommand(message);
+
+		if (isInBatch())
+		{
+			addToBatch(command);
+			return;
+		}
+
+		mViewCommands.beforeApply(command);
+
+		if (mViews == null || mViews.isEmpty())
+		{
+			return;
+		}
+
+		conflate(command);
+
+		mViewCommands.afterApply(command);
+	}
+
+
+	private class ShowProgressCommand extends ViewCommand<ConflateCommandsView>
+	{
+		public final int progress;
+
+		ShowProgressCommand(int progress)
+		{
+			super("showProgress", SKIP_STRATEGY);
+			this.progress = progress;
+		}
+
+		@Override
+		public void apply(ConflateCommandsView mvpView)
+		{
+			mvpView.showProgress(progress);
+		}
+	}
+
+	private class HideProgressCommand extends ViewCommand<ConflateCommandsView>
+	{
+		HideProgressCommand()
+		{
+			super("hideProgress", SKIP_STRATEGY);
+		}
+
+		@Override
+		public void apply(ConflateCommandsView mvpView)
+		{
+			mvpView.hideProgress();
+		}
+	}
+
+	private class ShowMessageCommand extends ViewCommand<ConflateCommandsView>
+	{
+		public final java.lang.String message;
+
+		ShowMessageCommand(java.lang.String message)
+		{
+			super("showMessage", ADD_TO_END_STRATEGY);
+			this.message = message;
+		}
+
+		@Override
+		public void apply(ConflateCommandsView mvpView)
+		{
+			mvpView.showMessage(message);
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package view;
+
+import com.arellomobile.mvp.MvpView;
+import com.arellomobile.mvp.viewstate.Conflate;
+import com.arellomobile.mvp.viewstate.strategy.SkipStrategy;
+import com.arellomobile.mvp.viewstate.strategy.StateStrategyType;
+
+/**
+ * Date: 18.03.2016
+ * Time: 12:14
+ *
+ * @author Yuri Shmakov
+ */
+public interface ConflateCommandsView extends MvpView
+{
+	@Conflate
+	@StateStrategyType(SkipStrategy.class)
+	void showProgress(int progress);
+
+	@StateStrategyType(SkipStrategy.class)
+	void hideProgress();
+
+	@Conflate
+	void showMessage(String message);
+}
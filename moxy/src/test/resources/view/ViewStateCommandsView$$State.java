@@ -0,0 +1,218 @@
+package view;
+
+import com.arellomobile.mvp.viewstate.MvpViewState;
+import com.arellomobile.mvp.viewstate.ViewCommand;
+import com.arellomobile.mvp.viewstate.strategy.AddToEndSingleStrategy;
+import com.arellomobile.mvp.viewstate.strategy.AddToEndStrategy;
+import com.arellomobile.mvp.viewstate.strategy.StateStrategies;
+import com.arellomobile.mvp.viewstate.strategy.StateStrategy;
+
+public class ViewStateCommandsView$$State extends MvpViewState<ViewStateCommandsView> implements ViewStateCommandsView
+{
+	private static final StateStrategy ADD_TO_END_STRATEGY = StateStrategies.get(com.arellomobile.mvp.viewstate.strategy.AddToEndStrategy.class);
+	private static final StateStrategy ADD_TO_END_SINGLE_STRATEGY = StateStrategies.get(com.arellomobile.mvp.viewstate.strategy.AddToEndSingleStrategy.class);
+	private static final StateStrategy ADD_TO_END_BOUNDED_STRATEGY = StateStrategies.get(com.arellomobile.mvp.viewstate.strategy.AddToEndBoundedStrategy.class);
+	private static final StateStrategy SKIP_STRATEGY = StateStrategies.get(com.arellomobile.mvp.viewstate.strategy.SkipStrategy.class);
+
+	@Override
+	public void restoreState(ViewStateCommandsView view)
+	{
+		if (mViewCommands.isEmpty())
+		{
+			return;
+		}
+
+		mViewCommands.reapply(view);
+	}
+
+	@Override
+	public  void showMessage(java.lang.String message)
+	{
+		if (!isMainThread())
+		{
+			postToMainThread(new ShowMessageCommand(message));
+			return;
+		}
+
+		ShowMessageCommand command = new ShowMessageCommand(message);
+
+		if (isInBatch())
+		{
+			addToBatch(command);
+			return;
+		}
+
+		mViewCommands.beforeApply(command);
+
+		if (mViews == null || mViews.isEmpty())
+		{
+			return;
+		}
+
+		for(ViewStateCommandsView view : mViews)
+		{
+			view.showMessage(message);
+		}
+
+		mViewCommands.afterApply(command);
+	}
+
+	@Override
+	public  void showTitle(java.lang.String title)
+	{
+		if (!isMainThread())
+		{
+			postToMainThread(new ShowTitleCommand(title));
+			return;
+		}
+
+		ShowTitleCommand command = new ShowTitleCommand(title);
+
+		if (isInBatch())
+		{
+			addToBatch(command);
+			return;
+		}
+
+		mViewCommands.beforeApply(command);
+
+		if (mViews == null || mViews.isEmpty())
+		{
+			return;
+		}
+
+		for(ViewStateCommandsView view : mViews)
+		{
+			view.showTitle(title);
+		}
+
+		mViewCommands.afterApply(command);
+	}
+
+	@Override
+	public  void addItem(int item)
+	{
+		if (!isMainThread())
+		{
+			postToMainThread(new AddItemCommand(item));
+			return;
+		}
+
+		AddItemCommand command = new AddItemCommand(item);
+
+		if (isInBatch())
+		{
+			addToBatch(command);
+			return;
+		}
+
+		mViewCommands.beforeApply(command);
+
+		if (mViews == null || mViews.isEmpty())
+		{
+			return;
+		}
+
+		for(ViewStateCommandsView view : mViews)
+		{
+			view.addItem(item);
+		}
+
+		mViewCommands.afterApply(command);
+	}
+
+	@Override
+	public  void scrollTo(int offset)
+	{
+		if (!isMainThread())
+		{
+			postToMainThread(new ScrollToCommand(offset));
+			return;
+		}
+
+		if (isInBatch())
+		{
+			addToBatch(new ScrollToCommand(offset));
+			return;
+		}
+
+		if (mViews == null || mViews.isEmpty())
+		{
+			return;
+		}
+
+		for(ViewStateCommandsView view : mViews)
+		{
+			view.scrollTo(offset);
+		}
+	}
+
+
+	private class ShowMessageCommand extends ViewCommand<ViewStateCommandsView>
+	{
+		public final java.lang.String message;
+
+		ShowMessageCommand(java.lang.String message)
+		{
+			super("showMessage", ADD_TO_END_STRATEGY);
+			this.message = message;
+		}
+
+		@Override
+		public void apply(ViewStateCommandsView mvpView)
+		{
+			mvpView.showMessage(message);
+		}
+	}
+
+	private class ShowTitleCommand extends ViewCommand<ViewStateCommandsView>
+	{
+		public final java.lang.String title;
+
+		ShowTitleCommand(java.lang.String title)
+		{
+			super("showTitle", ADD_TO_END_SINGLE_STRATEGY);
+			this.title = title;
+		}
+
+		@Override
+		public void apply(ViewStateCommandsView mvpView)
+		{
+			mvpView.showTitle(title);
+		}
+	}
+
+	private class AddItemCommand extends ViewCommand<ViewStateCommandsView>
+	{
+		public final int item;
+
+		AddItemCommand(int item)
+		{
+			super("addItem", ADD_TO_END_BOUNDED_STRATEGY, 3);
+			this.item = item;
+		}
+
+		@Override
+		public void apply(ViewStateCommandsView mvpView)
+		{
+			mvpView.addItem(item);
+		}
+	}
+
+	private class ScrollToCommand extends ViewCommand<ViewStateCommandsView>
+	{
+		public final int offset;
+
+		ScrollToCommand(int offset)
+		{
+			super("scrollTo", SKIP_STRATEGY);
+			this.offset = offset;
+		}
+
+		@Override
+		public void apply(ViewStateCommandsView mvpView)
+		{
+			mvpView.scrollTo(offset);
+		}
+	}
+}
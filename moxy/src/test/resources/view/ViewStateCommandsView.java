@@ -0,0 +1,27 @@
+package view;
+
+import com.arellomobile.mvp.MvpView;
+import com.arellomobile.mvp.viewstate.strategy.AddToEndBoundedStrategy;
+import com.arellomobile.mvp.viewstate.strategy.AddToEndSingleStrategy;
+import com.arellomobile.mvp.viewstate.strategy.SkipStrategy;
+import com.arellomobile.mvp.viewstate.strategy.StateStrategyType;
+
+/**
+ * Date: 18.03.2016
+ * Time: 12:10
+ *
+ * @author Yuri Shmakov
+ */
+public interface ViewStateCommandsView extends MvpView
+{
+	void showMessage(String message);
+
+	@StateStrategyType(AddToEndSingleStrategy.class)
+	void showTitle(String title);
+
+	@StateStrategyType(value = AddToEndBoundedStrategy.class, capacity = 3)
+	void addItem(int item);
+
+	@StateStrategyType(SkipStrategy.class)
+	void scrollTo(int offset);
+}